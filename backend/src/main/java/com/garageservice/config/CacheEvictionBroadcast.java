@@ -0,0 +1,88 @@
+package com.garageservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Tells every node to drop an entry from a node-local cache. With app.websocket.broker=relay each
+ * node subscribes to {@link #DESTINATION} on the relay's shared system connection (next to the
+ * user registry broadcast) and evictions are published there as "cache:key". With the simple
+ * broker there is a single node, so local eviction is enough and nothing is sent.
+ *
+ * A node that misses a message (e.g. while its relay connection is down) still drops the entry
+ * when it expires, so caches using this keep a time-to-live as the upper bound.
+ */
+@Component
+public class CacheEvictionBroadcast implements SmartInitializingSingleton, MessageHandler {
+    private static final Logger logger = LoggerFactory.getLogger(CacheEvictionBroadcast.class);
+    public static final String DESTINATION = "/topic/cache-evictions";
+
+    @Value("${app.websocket.broker:simple}")
+    private String brokerMode;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    @Lazy
+    private SimpMessagingTemplate messagingTemplate;
+
+    private final Map<String, Consumer<String>> listeners = new ConcurrentHashMap<>();
+
+    /** Registers what to do when another node evicts a key of the named cache. */
+    public void listen(String cache, Consumer<String> evict) {
+        listeners.put(cache, evict);
+    }
+
+    public void publish(String cache, Object key) {
+        if (!isRelay()) return;
+        try {
+            messagingTemplate.convertAndSend(DESTINATION, cache + ":" + key);
+        } catch (Exception e) {
+            logger.warn("[CacheEvictionBroadcast] Could not publish eviction of {} {}: {}", cache, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!isRelay()) return;
+        // Before the relay starts: system subscriptions are made when its system session connects
+        for (StompBrokerRelayMessageHandler relay : applicationContext.getBeansOfType(StompBrokerRelayMessageHandler.class).values()) {
+            Map<String, MessageHandler> subscriptions = new HashMap<>();
+            if (relay.getSystemSubscriptions() != null) subscriptions.putAll(relay.getSystemSubscriptions());
+            subscriptions.put(DESTINATION, this);
+            relay.setSystemSubscriptions(subscriptions);
+        }
+    }
+
+    /** An eviction received from the relay (this node's own ones included). */
+    @Override
+    public void handleMessage(Message<?> message) {
+        Object payload = message.getPayload();
+        String text = payload instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : String.valueOf(payload);
+        int colon = text.indexOf(':');
+        if (colon <= 0) return;
+        Consumer<String> evict = listeners.get(text.substring(0, colon));
+        if (evict != null) evict.accept(text.substring(colon + 1));
+    }
+
+    private boolean isRelay() {
+        return "relay".equalsIgnoreCase(brokerMode);
+    }
+}
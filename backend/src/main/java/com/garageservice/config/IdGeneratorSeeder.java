@@ -0,0 +1,64 @@
+package com.garageservice.config;
+
+import com.garageservice.model.IdGenerators;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Moves each id_generators row past the highest id already in its table. Needed once when an
+ * existing database switches from IDENTITY columns to table-generated ids, and harmless after:
+ * the UPDATE only ever raises next_val, so concurrent startups of several nodes are safe.
+ * Runs after the schema update (entityManagerFactory) and before the web server accepts requests.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class IdGeneratorSeeder {
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorSeeder.class);
+
+    // pkColumnValue of each generator, which is also the table whose ids it hands out
+    private static final List<String> TABLES = List.of("service_requests", "garages", "device_tokens", "notifications");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdGeneratorSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void seed() {
+        for (String table : TABLES) {
+            try {
+                Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+                // The pooled optimizer hands out (next_val - allocationSize, next_val]; stay clear of maxId
+                long floor = (maxId == null ? 0 : maxId) + IdGenerators.ALLOCATION_SIZE + 1;
+                int updated = jdbcTemplate.update("UPDATE " + IdGenerators.TABLE + " SET " + IdGenerators.VALUE_COLUMN + " = ? WHERE "
+                        + IdGenerators.PK_COLUMN + " = ? AND " + IdGenerators.VALUE_COLUMN + " < ?", floor, table, floor);
+                if (updated == 0) insertIfMissing(table, floor);
+            } catch (DataAccessException e) {
+                logger.warn("[IdGeneratorSeeder] Could not seed id generator for {}: {}", table, e.getMessage());
+            }
+        }
+    }
+
+    private void insertIfMissing(String table, long floor) {
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + IdGenerators.TABLE + " WHERE "
+                + IdGenerators.PK_COLUMN + " = ?", Integer.class, table);
+        if (rows != null && rows > 0) return;
+        try {
+            jdbcTemplate.update("INSERT INTO " + IdGenerators.TABLE + " (" + IdGenerators.PK_COLUMN + ", "
+                    + IdGenerators.VALUE_COLUMN + ") VALUES (?, ?)", table, floor);
+            logger.info("[IdGeneratorSeeder] Seeded {} ids from {}", table, floor);
+        } catch (DataAccessException e) {
+            // Another node inserted it first; make sure it is high enough
+            jdbcTemplate.update("UPDATE " + IdGenerators.TABLE + " SET " + IdGenerators.VALUE_COLUMN + " = ? WHERE "
+                    + IdGenerators.PK_COLUMN + " = ? AND " + IdGenerators.VALUE_COLUMN + " < ?", floor, table, floor);
+        }
+    }
+}
@@ -3,12 +3,16 @@ package com.garageservice.config;
 import com.garageservice.security.JwtHandshakeInterceptor;
 import com.garageservice.security.StompPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
 import java.security.Principal;
@@ -37,13 +41,109 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                         return super.determineUser(request, wsHandler, attributes);
                     }
                 })
-                .withSockJS();
+                .withSockJS()
+                .setHeartbeatTime(heartbeatMs)
+                .setDisconnectDelay(sockJsDisconnectDelayMs)
+                // Caps what a polling SockJS client that stops fetching can pin in server memory
+                .setHttpMessageCacheSize(sockJsMessageCacheSize)
+                .setStreamBytesLimit(sockJsStreamBytesLimit);
+    }
+
+    // simple: in-memory broker, single node only; relay: external STOMP broker (e.g. RabbitMQ) shared by all nodes
+    @Value("${app.websocket.broker:simple}")
+    private String brokerMode;
+
+    @Value("${app.websocket.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${app.websocket.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${app.websocket.relay.virtualHost:}")
+    private String relayVirtualHost;
+
+    // STOMP heartbeat in both directions; also the SockJS heartbeat
+    @Value("${app.websocket.heartbeatMs:10000}")
+    private long heartbeatMs;
+
+    // A session whose pending sends exceed either limit is closed as a slow consumer
+    @Value("${app.websocket.sendTimeLimitMs:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${app.websocket.sendBufferSizeLimit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${app.websocket.messageSizeLimit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${app.websocket.brokerSchedulerPoolSize:2}")
+    private int brokerSchedulerPoolSize;
+
+    @Value("${app.websocket.sockjs.disconnectDelayMs:5000}")
+    private long sockJsDisconnectDelayMs;
+
+    @Value("${app.websocket.sockjs.httpMessageCacheSize:100}")
+    private int sockJsMessageCacheSize;
+
+    @Value("${app.websocket.sockjs.streamBytesLimit:131072}")
+    private int sockJsStreamBytesLimit;
+
+    @Autowired
+    private WebSocketMetrics webSocketMetrics;
+
+    // Heartbeats and broker housekeeping run here rather than on the shared task scheduler
+    @Bean
+    public ThreadPoolTaskScheduler brokerTaskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(brokerSchedulerPoolSize);
+        scheduler.setThreadNamePrefix("ws-broker-");
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(webSocketMetrics);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(webSocketMetrics);
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            var relay = registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setSystemHeartbeatSendInterval(heartbeatMs)
+                    .setSystemHeartbeatReceiveInterval(heartbeatMs)
+                    .setTaskScheduler(brokerTaskScheduler())
+                    // Share user sessions between nodes so user destinations and presence work cluster-wide
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+            if (!relayVirtualHost.isBlank()) relay.setVirtualHost(relayVirtualHost);
+        } else {
+            registry.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[]{heartbeatMs, heartbeatMs})
+                    .setTaskScheduler(brokerTaskScheduler());
+        }
         registry.setApplicationDestinationPrefixes("/app");
+        registry.setUserDestinationPrefix("/user");
     }
 
     @Autowired
@@ -0,0 +1,87 @@
+package com.garageservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebSocket gauges and counters:
+ * websocket.sessions.open, websocket.outbound.queued.messages / .bytes (frames waiting in the
+ * client outbound channel), websocket.outbound.dropped (frames the channel refused) and
+ * websocket.sessions.slow_consumer_closed (sessions closed for exceeding the send time or buffer limit).
+ */
+@Component
+public class WebSocketMetrics implements WebSocketHandlerDecoratorFactory, ExecutorChannelInterceptor {
+    private final AtomicInteger openSessions = new AtomicInteger();
+    private final AtomicLong queuedMessages = new AtomicLong();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final Counter dropped;
+    private final Counter slowConsumerClosed;
+
+    public WebSocketMetrics(MeterRegistry registry) {
+        Gauge.builder("websocket.sessions.open", openSessions, AtomicInteger::get).register(registry);
+        Gauge.builder("websocket.outbound.queued.messages", queuedMessages, AtomicLong::get).register(registry);
+        Gauge.builder("websocket.outbound.queued.bytes", queuedBytes, AtomicLong::get).baseUnit("bytes").register(registry);
+        this.dropped = Counter.builder("websocket.outbound.dropped").register(registry);
+        this.slowConsumerClosed = Counter.builder("websocket.sessions.slow_consumer_closed").register(registry);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                openSessions.incrementAndGet();
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                openSessions.decrementAndGet();
+                // ConcurrentWebSocketSessionDecorator closes with this status when a client can't keep up
+                if (CloseStatus.SESSION_NOT_RELIABLE.equals(closeStatus)) slowConsumerClosed.increment();
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    // Client outbound channel: count frames between hand-off to the executor and delivery to the session
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        queuedMessages.incrementAndGet();
+        if (message.getPayload() instanceof byte[] bytes) queuedBytes.addAndGet(bytes.length);
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (!sent || ex != null) {
+            dequeue(message);
+            dropped.increment();
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        dequeue(message);
+    }
+
+    private void dequeue(Message<?> message) {
+        queuedMessages.decrementAndGet();
+        if (message.getPayload() instanceof byte[] bytes) queuedBytes.addAndGet(-bytes.length);
+    }
+}
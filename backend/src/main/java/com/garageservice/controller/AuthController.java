@@ -5,8 +5,14 @@ import com.garageservice.dto.AuthResponse;
 import com.garageservice.dto.SignupRequest;
 import com.garageservice.model.User;
 import com.garageservice.repository.UserRepository;
+import com.garageservice.security.JwtClaims;
 import com.garageservice.security.JwtUtils;
+import com.garageservice.security.LoginRateLimiter;
+import com.garageservice.security.PasswordHashingExecutor;
+import com.garageservice.security.PrincipalCache;
 import com.garageservice.security.UserPrincipal;
+import com.garageservice.exception.TooManyRequestsException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -24,6 +30,7 @@ import java.util.UUID;
 import java.time.LocalDateTime;
 import org.springframework.beans.factory.annotation.Value;
 import com.garageservice.service.EmailService;
+import com.garageservice.service.RefreshTokenService;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -44,16 +51,32 @@ public class AuthController {
     @Autowired
     EmailService emailService;
 
+    @Autowired
+    PrincipalCache principalCache;
+
+    @Autowired
+    RefreshTokenService refreshTokenService;
+
+    @Autowired
+    LoginRateLimiter loginRateLimiter;
+
+    @Autowired
+    PasswordHashingExecutor passwordHashing;
+
     @Value("${app.mail.reset.base-url:https://example.com/reset-password}")
     private String resetBaseUrl;
 
     @PostMapping("/signin")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody AuthRequest loginRequest) {
+    public ResponseEntity<?> authenticateUser(@Valid @RequestBody AuthRequest loginRequest, HttpServletRequest request) {
         System.out.println("Login attempt: "+ loginRequest.getEmail());
+        // Rejected before any BCrypt work is done
+        loginRateLimiter.acquire(loginRequest.getEmail(), request);
         Authentication authentication;
         try{
-            authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
+            authentication = passwordHashing.call(() -> authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword())));
+        }catch(TooManyRequestsException e){
+            throw e;
         }catch(Exception e){
             e.printStackTrace();
             return ResponseEntity
@@ -62,7 +85,7 @@ public class AuthController {
         }
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = jwtUtils.generateJwtToken(authentication);
-        String refresh = jwtUtils.generateRefreshToken(authentication);
+        String refresh = refreshTokenService.issue(authentication);
 
         UserPrincipal userDetails = (UserPrincipal) authentication.getPrincipal();
 
@@ -81,10 +104,11 @@ public class AuthController {
         if(token == null){
             return ResponseEntity.badRequest().body(Map.of("message","refreshToken is required"));
         }
-        if(!jwtUtils.validateJwtToken(token) || !jwtUtils.isRefreshToken(token)){
+        JwtClaims claims = jwtUtils.verify(token);
+        if(claims == null || !claims.isRefreshToken()){
             return ResponseEntity.status(401).body(Map.of("message","Invalid refresh token"));
         }
-        String username = jwtUtils.getUserNameFromJwtToken(token);
+        String username = claims.getSubject();
         User user = userRepository.findByEmail(username).orElse(null);
         if(user == null){
             return ResponseEntity.status(401).body(Map.of("message","User not found"));
@@ -95,8 +119,23 @@ public class AuthController {
                 null,
                 List.of(new org.springframework.security.core.authority.SimpleGrantedAuthority("ROLE_"+user.getUserType().name()))
         );
+        // Refresh tokens are single use: the presented one is consumed and replaced
+        String newRefresh = refreshTokenService.rotate(token, claims, authentication);
+        if(newRefresh == null){
+            return ResponseEntity.status(401).body(Map.of("message","Invalid refresh token"));
+        }
         String newAccess = jwtUtils.generateJwtToken(authentication);
-        return ResponseEntity.ok(Map.of("accessToken", newAccess));
+        return ResponseEntity.ok(Map.of("accessToken", newAccess, "refreshToken", newRefresh));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody Map<String, String> body){
+        String token = body.get("refreshToken");
+        JwtClaims claims = jwtUtils.verify(token);
+        if(claims != null && claims.isRefreshToken()){
+            refreshTokenService.revoke(token, claims);
+        }
+        return ResponseEntity.ok(Map.of("message","Logged out"));
     }
 
     @PostMapping("/signup")
@@ -118,7 +157,7 @@ public class AuthController {
                 signUpRequest.getLastName(),
                 signUpRequest.getEmail(),
                 signUpRequest.getPhoneNumber(),
-                encoder.encode(signUpRequest.getPassword()),
+                passwordHashing.call(() -> encoder.encode(signUpRequest.getPassword())),
                 signUpRequest.getUserType());
 
         userRepository.save(user);
@@ -179,10 +218,12 @@ public class AuthController {
         if (user.getResetTokenExpiry() == null || user.getResetTokenExpiry().isBefore(LocalDateTime.now())) {
             return ResponseEntity.status(400).body(Map.of("message", "Invalid or expired token"));
         }
-        user.setPassword(encoder.encode(newPassword));
+        user.setPassword(passwordHashing.call(() -> encoder.encode(newPassword)));
         user.setResetToken(null);
         user.setResetTokenExpiry(null);
         userRepository.save(user);
+        principalCache.evict(user.getEmail());
+        refreshTokenService.revokeAllForUser(user.getId());
         return ResponseEntity.ok(Map.of("message", "Password has been reset successfully"));
     }
 }
\ No newline at end of file
@@ -8,12 +8,20 @@ import com.garageservice.repository.GarageRepository;
 import com.garageservice.repository.GarageServiceRepository;
 import com.garageservice.repository.UserRepository;
 import com.garageservice.security.UserPrincipal;
+import com.garageservice.service.CatalogCacheService;
+import com.garageservice.service.EtaService;
+import com.garageservice.service.GarageDirectoryService;
+import com.garageservice.service.GarageSearchIndex;
+import com.garageservice.service.NotificationPublisher;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -34,6 +42,21 @@ public class GarageController {
     @Autowired
     private GarageServiceRepository garageServiceRepository;
 
+    @Autowired
+    private EtaService etaService;
+
+    @Autowired
+    private NotificationPublisher notificationPublisher;
+
+    @Autowired
+    private CatalogCacheService catalogCacheService;
+
+    @Autowired
+    private GarageDirectoryService garageDirectoryService;
+
+    @Autowired
+    private GarageSearchIndex garageSearchIndex;
+
     @PostMapping
     @PreAuthorize("hasRole('GARAGE_OWNER')")
     public ResponseEntity<?> createGarage(@Valid @RequestBody GarageRequest garageRequest, Authentication authentication) {
@@ -65,6 +88,8 @@ public class GarageController {
         );
 
         Garage savedGarage = garageRepository.save(garage);
+        garageDirectoryService.invalidate();
+        garageSearchIndex.upsertGarage(savedGarage);
         return ResponseEntity.ok(savedGarage);
     }
 
@@ -104,6 +129,9 @@ public class GarageController {
         garage.setWorkingHours(garageRequest.getWorkingHours());
 
         Garage updated = garageRepository.save(garage);
+        catalogCacheService.evictGarage(updated.getId());
+        garageDirectoryService.invalidate();
+        garageSearchIndex.upsertGarage(updated);
         return ResponseEntity.ok(updated);
     }
 
@@ -111,21 +139,94 @@ public class GarageController {
     public ResponseEntity<List<Garage>> getNearbyGarages(
             @RequestParam Double latitude,
             @RequestParam Double longitude,
-            @RequestParam(defaultValue = "10.0") Double radiusKm) {
+            @RequestParam(defaultValue = "10.0") Double radiusKm,
+            @RequestParam(required = false) String sort) {
         
         List<Garage> nearbyGarages = garageRepository.findGaragesWithinRadius(latitude, longitude, radiusKm);
+        if ("eta".equalsIgnoreCase(sort)) {
+            // Rank by predicted arrival (cached road travel time or straight line, + current workload)
+            Map<Long, Integer> etas = new HashMap<>();
+            for (Garage g : nearbyGarages) {
+                Integer eta = etaService.cachedArrivalMinutes(g, latitude, longitude);
+                etas.put(g.getId(), eta == null ? Integer.MAX_VALUE : eta);
+            }
+            nearbyGarages = new java.util.ArrayList<>(nearbyGarages);
+            nearbyGarages.sort(java.util.Comparator.comparing(g -> etas.get(g.getId())));
+        }
         return ResponseEntity.ok(nearbyGarages);
     }
 
+    /**
+     * Garage search in one call: free text over garage and service names/descriptions (q; typos and
+     * prefixes tolerated), a service that must be offered (service, e.g. "oil change") priced between
+     * minPrice and maxPrice, and a radius around latitude/longitude. Each garage comes with its
+     * distance and the services that matched. sort=distance orders by distance instead of relevance.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<GarageSearchIndex.Hit>> searchGarages(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String service,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) java.math.BigDecimal minPrice,
+            @RequestParam(required = false) java.math.BigDecimal maxPrice,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Integer limit) {
+        var query = new GarageSearchIndex.SearchQuery(q, service, latitude, longitude, radiusKm,
+                minPrice, maxPrice, "distance".equalsIgnoreCase(sort), limit);
+        return ResponseEntity.ok(garageSearchIndex.search(query));
+    }
+
     @GetMapping("/{garageId}/services")
     public ResponseEntity<List<GarageService>> getGarageServices(@PathVariable Long garageId) {
         List<GarageService> services = garageServiceRepository.findByGarageId(garageId);
         return ResponseEntity.ok(services);
     }
 
+    // Whether the garage owner currently has a WebSocket session open (on any node with the relay broker)
+    @GetMapping("/{garageId}/presence")
+    public ResponseEntity<?> getGaragePresence(@PathVariable Long garageId) {
+        Optional<Long> ownerId = garageRepository.findOwnerIdById(garageId);
+        if (ownerId.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("garageId", garageId);
+        response.put("online", notificationPublisher.isOnline(ownerId.get()));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Garage directory, keyset paginated: pass the X-Next-Cursor header of a page as after= to get
+     * the next one. The default first page comes from a prebuilt snapshot, gzip-compressed for
+     * clients that accept it. Responds 304 when If-None-Match matches.
+     */
     @GetMapping
-    public ResponseEntity<List<Garage>> getAllGarages() {
-        List<Garage> garages = garageRepository.findAll();
-        return ResponseEntity.ok(garages);
+    public ResponseEntity<?> getAllGarages(@RequestParam(required = false) Integer size,
+                                           @RequestParam(required = false) Long after,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                           WebRequest webRequest) {
+        int pageSize = garageDirectoryService.pageSize(size);
+        if (after == null && pageSize == garageDirectoryService.defaultPageSize()) {
+            GarageDirectoryService.Snapshot snapshot = garageDirectoryService.firstPage();
+            if (webRequest.checkNotModified(snapshot.etag())) {
+                return null; // 304 already prepared by checkNotModified
+            }
+            var response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(snapshot.etag())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (snapshot.nextAfter() != null) response.header("X-Next-Cursor", String.valueOf(snapshot.nextAfter()));
+            if (acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip")) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzip());
+            }
+            return response.body(snapshot.json());
+        }
+
+        GarageDirectoryService.Page page = garageDirectoryService.page(after, pageSize);
+        var response = ResponseEntity.ok();
+        if (page.nextAfter() != null) response.header("X-Next-Cursor", String.valueOf(page.nextAfter()));
+        return response.body(page.items());
     }
 }
\ No newline at end of file
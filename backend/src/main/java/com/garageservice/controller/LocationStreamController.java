@@ -0,0 +1,47 @@
+package com.garageservice.controller;
+
+import com.garageservice.security.StompPrincipal;
+import com.garageservice.service.LocationTrackingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+/**
+ * STOMP endpoint for the garage's device: SEND /app/requests/{requestId}/location with
+ * {"latitude":..,"longitude":..,"heading":..}. The request's customer receives the positions on
+ * /user/queue/tracking.
+ */
+@Controller
+public class LocationStreamController {
+
+    @Autowired
+    private LocationTrackingService locationTrackingService;
+
+    @MessageMapping("/requests/{requestId}/location")
+    public void updateLocation(@DestinationVariable Long requestId, @Payload LocationUpdate update, Principal principal) {
+        if (!(principal instanceof StompPrincipal sp) || update.getLatitude() == null || update.getLongitude() == null) {
+            return;
+        }
+        locationTrackingService.update(requestId, sp.getUserId(), update.getLatitude(), update.getLongitude(), update.getHeading());
+    }
+
+    public static class LocationUpdate {
+        private Double latitude;
+        private Double longitude;
+        private Double heading;
+
+        // Getters and Setters
+        public Double getLatitude() { return latitude; }
+        public void setLatitude(Double latitude) { this.latitude = latitude; }
+
+        public Double getLongitude() { return longitude; }
+        public void setLongitude(Double longitude) { this.longitude = longitude; }
+
+        public Double getHeading() { return heading; }
+        public void setHeading(Double heading) { this.heading = heading; }
+    }
+}
@@ -3,13 +3,18 @@ package com.garageservice.controller;
 import com.garageservice.model.Notification;
 import com.garageservice.service.NotificationService;
 import com.garageservice.service.DeviceTokenService;
+import com.garageservice.service.NotificationPublisher;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.web.context.request.WebRequest;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,19 +26,67 @@ public class NotificationController {
 
     @Autowired
     private NotificationService notificationService;
+    @Value("${app.notifications.pageSize:50}")
+    private int defaultPageSize;
+    @Value("${app.notifications.maxPageSize:200}")
+    private int maxPageSize;
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private NotificationPublisher notificationPublisher;
     @Autowired
     private DeviceTokenService deviceTokenService;
     @Autowired
     private com.garageservice.service.FcmSenderService fcmSenderService;
 
+    /**
+     * Newest-first feed, keyset paginated: pass the X-Next-Cursor header of a page as before= to get
+     * the next one. sinceId= returns only notifications newer than that one (after a reconnect), paged
+     * the same way with sinceId= and before= together; 410 when that notification no longer exists,
+     * so the client reloads the feed instead of missing a gap. Responds 304 when If-None-Match
+     * matches the current feed version.
+     */
     @GetMapping("/my")
     @PreAuthorize("hasAnyRole('CUSTOMER','GARAGE_OWNER')")
-    public ResponseEntity<?> myNotifications(Authentication authentication){
+    public ResponseEntity<?> myNotifications(@RequestParam(value = "limit", required = false) Integer limit,
+                                             @RequestParam(value = "before", required = false) String before,
+                                             @RequestParam(value = "sinceId", required = false) Long sinceId,
+                                             Authentication authentication,
+                                             WebRequest webRequest){
         Long userId = resolveUserId(authentication);
-        List<Notification> list = notificationService.forUser(userId);
-        return ResponseEntity.ok(list.stream().map(this::toDto).toList());
+        int size = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        String etag = "W/\"" + notificationService.feedVersion(userId) + "-"
+                + Integer.toHexString(java.util.Objects.hash(size, before, sinceId)) + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null; // 304 already prepared by checkNotModified
+        }
+
+        Cursor cursor = before != null && !before.isBlank() ? decodeCursor(before) : null;
+        LocalDateTime cursorCreatedAt = cursor == null ? null : cursor.createdAt();
+        Long cursorId = cursor == null ? null : cursor.id();
+        List<Notification> list;
+        if (sinceId != null) {
+            list = notificationService.since(userId, sinceId, cursorCreatedAt, cursorId, size + 1);
+            if (list == null) {
+                return ResponseEntity.status(410).body(Map.of("message", "sinceId is no longer available; reload the feed"));
+            }
+        } else {
+            list = notificationService.page(userId, cursorCreatedAt, cursorId, size + 1);
+        }
+
+        // One extra row tells us whether there is a next page without a COUNT
+        var response = ResponseEntity.ok().eTag(etag);
+        if (list.size() > size) {
+            list = list.subList(0, size);
+            Notification last = list.get(size - 1);
+            response.header("X-Next-Cursor", encodeCursor(last));
+        }
+        return response.body(list.stream().map(this::toDto).toList());
+    }
+
+    @GetMapping("/unread-count")
+    @PreAuthorize("hasAnyRole('CUSTOMER','GARAGE_OWNER')")
+    public ResponseEntity<?> unreadCount(Authentication authentication){
+        Long userId = resolveUserId(authentication);
+        return ResponseEntity.ok(Map.of("unread", notificationService.unreadCount(userId)));
     }
 
     @PutMapping("/{id}/read")
@@ -43,8 +96,7 @@ public class NotificationController {
         return notificationService.findById(id)
                 .filter(n -> n.getUser().getId().equals(userId))
                 .map(n -> {
-                    n.setReadFlag(true);
-                    notificationService.save(n);
+                    notificationService.markRead(n);
                     publishEvent(userId, "READ", n.getId());
                     return ResponseEntity.ok(toDto(n));
                 })
@@ -55,11 +107,9 @@ public class NotificationController {
     @PreAuthorize("hasAnyRole('CUSTOMER','GARAGE_OWNER')")
     public ResponseEntity<?> markAll(Authentication authentication){
         Long userId = resolveUserId(authentication);
-        List<Notification> list = notificationService.forUser(userId);
-        list.forEach(n -> n.setReadFlag(true));
-        notificationService.saveAll(list);
+        int updated = notificationService.markAllRead(userId);
         Map<String,Object> resp = new HashMap<>();
-        resp.put("updated", list.size());
+        resp.put("updated", updated);
         publishEvent(userId, "READ_ALL", null);
         return ResponseEntity.ok(resp);
     }
@@ -149,9 +199,24 @@ public class NotificationController {
         Map<String,Object> payload = new HashMap<>();
         payload.put("type", type);
         if(notificationId != null) payload.put("id", notificationId);
-        messagingTemplate.convertAndSend("/topic/notifications." + userId, payload);
+        notificationPublisher.publish(userId, payload);
+    }
+
+    private static String encodeCursor(Notification n){
+        String raw = n.getCreatedAt() + "|" + n.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
     }
 
+    private static Cursor decodeCursor(String cursor){
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length == 2) return new Cursor(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (RuntimeException ignore) {}
+        throw new IllegalArgumentException("Invalid cursor");
+    }
+
+    private record Cursor(LocalDateTime createdAt, Long id) {}
+
     private Map<String,Object> toDto(Notification n){
         Map<String,Object> m = new HashMap<>();
         m.put("id", n.getId());
@@ -5,6 +5,8 @@ import com.garageservice.model.GarageService;
 import com.garageservice.repository.GarageRepository;
 import com.garageservice.repository.GarageServiceRepository;
 import com.garageservice.security.UserPrincipal;
+import com.garageservice.service.CatalogCacheService;
+import com.garageservice.service.GarageSearchIndex;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -29,6 +31,12 @@ public class ServiceController {
     @Autowired
     private GarageRepository garageRepository;
 
+    @Autowired
+    private CatalogCacheService catalogCacheService;
+
+    @Autowired
+    private GarageSearchIndex garageSearchIndex;
+
     @PostMapping
     @PreAuthorize("hasRole('GARAGE_OWNER')")
     public ResponseEntity<?> createService(@Valid @RequestBody ServiceRequest serviceRequest, Authentication authentication) {
@@ -50,6 +58,8 @@ public class ServiceController {
         );
 
         GarageService savedService = garageServiceRepository.save(service);
+        catalogCacheService.evictServices(garage.get().getId(), savedService.getId());
+        garageSearchIndex.upsertService(savedService, garage.get().getId());
         return ResponseEntity.ok(savedService);
     }
 
@@ -89,6 +99,8 @@ public class ServiceController {
         }
 
         garageServiceRepository.deleteById(serviceId);
+        catalogCacheService.evictServices(garage.get().getId(), serviceId);
+        garageSearchIndex.removeService(serviceId);
         Map<String, String> response = new HashMap<>();
         response.put("message", "Service deleted successfully");
         return ResponseEntity.ok(response);
@@ -120,6 +132,8 @@ public class ServiceController {
         existing.setEstimatedDurationMinutes(serviceRequest.getEstimatedDurationMinutes());
 
         GarageService updated = garageServiceRepository.save(existing);
+        catalogCacheService.evictServices(garage.get().getId(), serviceId);
+        garageSearchIndex.upsertService(updated, garage.get().getId());
         return ResponseEntity.ok(updated);
     }
 
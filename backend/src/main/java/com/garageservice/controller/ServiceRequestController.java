@@ -8,7 +8,7 @@ import com.garageservice.dto.ServiceRequestResponseDto;
 import com.garageservice.model.User;
 import com.garageservice.repository.GarageRepository;
 import com.garageservice.service.NotificationService;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import com.garageservice.service.NotificationPublisher;
 import com.garageservice.repository.GarageServiceRepository;
 import com.garageservice.repository.ServiceRequestRepository;
 import com.garageservice.repository.UserRepository;
@@ -25,6 +25,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import com.garageservice.service.EmailService;
+import com.garageservice.service.EtaService;
+import com.garageservice.service.LocationTrackingService;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -45,9 +47,13 @@ public class ServiceRequestController {
     @Autowired
     private NotificationService notificationService;
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private NotificationPublisher notificationPublisher;
     @Autowired
     private EmailService emailService;
+    @Autowired
+    private EtaService etaService;
+    @Autowired
+    private LocationTrackingService locationTrackingService;
 
     @PostMapping
     @PreAuthorize("hasRole('CUSTOMER')")
@@ -84,7 +90,7 @@ public class ServiceRequestController {
     // Notify garage owner
     User garageOwner = garage.get().getUser();
     var createdNotif = notificationService.create(garageOwner, "New Service Request", "A new request #"+savedRequest.getId()+" has been created by "+customer.getFirstName());
-    messagingTemplate.convertAndSend("/topic/notifications."+garageOwner.getId(), java.util.Map.of("type","CREATED","id", createdNotif.getId()));
+    notificationPublisher.publishCreated(garageOwner, createdNotif);
     // Send email to garage owner (if mail is enabled)
     try {
         String subject = "New request #" + savedRequest.getId() + " from " + customer.getFirstName();
@@ -95,26 +101,7 @@ public class ServiceRequestController {
                 "\n\nPlease log in to review and respond.";
         emailService.send(garageOwner.getEmail(), subject, body);
     } catch (Exception ignore) {}
-        ServiceRequestResponseDto dto = new ServiceRequestResponseDto(
-            savedRequest.getId(),
-            savedRequest.getCustomer().getEmail(),
-            savedRequest.getCustomer().getFirstName() + " " + savedRequest.getCustomer().getLastName(),
-            savedRequest.getCustomer().getPhoneNumber(),
-            savedRequest.getGarage().getName(),
-            savedRequest.getGarage().getAddress(),
-            savedRequest.getGarage().getDescription(),
-            savedRequest.getService().getName(),
-            savedRequest.getService().getDescription(),
-            savedRequest.getService().getPrice(),
-            savedRequest.getDescription(),
-            savedRequest.getCreatedAt(),
-            savedRequest.getStatus() != null ? savedRequest.getStatus().name() : null,
-            savedRequest.getGarageResponse(),
-            savedRequest.getEstimatedArrivalMinutes(),
-            savedRequest.getCustomerAddress(),
-            savedRequest.getCustomerLatitude(),
-            savedRequest.getCustomerLongitude()
-        );
+        ServiceRequestResponseDto dto = toDto(savedRequest);
         return ResponseEntity.ok(dto);
     }
 
@@ -124,28 +111,7 @@ public class ServiceRequestController {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
         List<ServiceRequest> requests = serviceRequestRepository.findByCustomerIdOrderByCreatedAtDesc(userPrincipal.getId());
         
-        List<ServiceRequestResponseDto> dtoList = requests.stream().map(req -> 
-            new ServiceRequestResponseDto(
-                req.getId(),
-                req.getCustomer().getEmail(),
-                req.getCustomer().getFirstName() + " " + req.getCustomer().getLastName(),
-                req.getCustomer().getPhoneNumber(),
-                req.getGarage().getName(),
-                req.getGarage().getAddress(),
-                req.getGarage().getDescription(),
-                req.getService().getName(),
-                req.getService().getDescription(),
-                req.getService().getPrice(),
-                req.getDescription(),
-                req.getCreatedAt(),
-                req.getStatus() != null ? req.getStatus().name() : null,
-                req.getGarageResponse(),
-                req.getEstimatedArrivalMinutes(),
-                req.getCustomerAddress(),
-                req.getCustomerLatitude(),
-                req.getCustomerLongitude()
-            )
-        ).toList();
+        List<ServiceRequestResponseDto> dtoList = requests.stream().map(this::toDto).toList();
 
         return ResponseEntity.ok(dtoList);
         // return ResponseEntity.ok(requests);
@@ -165,28 +131,7 @@ public class ServiceRequestController {
         }
 
         List<ServiceRequest> requests = serviceRequestRepository.findByGarageIdOrderByCreatedAtDesc(garage.get().getId());
-        List<ServiceRequestResponseDto> dtoList = requests.stream().map(req -> 
-            new ServiceRequestResponseDto(
-                req.getId(),
-                req.getCustomer().getEmail(),
-                req.getCustomer().getFirstName() + " " + req.getCustomer().getLastName(),
-                req.getCustomer().getPhoneNumber(),
-                req.getGarage().getName(),
-                req.getGarage().getAddress(),
-                req.getGarage().getDescription(),
-                req.getService().getName(),
-                req.getService().getDescription(),
-                req.getService().getPrice(),
-                req.getDescription(),
-                req.getCreatedAt(),
-                req.getStatus() != null ? req.getStatus().name() : null,
-                req.getGarageResponse(),
-                req.getEstimatedArrivalMinutes(),
-                req.getCustomerAddress(),
-                req.getCustomerLatitude(),
-                req.getCustomerLongitude()
-            )
-        ).toList();
+        List<ServiceRequestResponseDto> dtoList = requests.stream().map(this::toDto).toList();
 
         return ResponseEntity.ok(dtoList);
     }
@@ -211,14 +156,17 @@ public class ServiceRequestController {
         }
 
         ServiceRequest request = serviceRequest.get();
+        ServiceRequest.RequestStatus previousStatus = request.getStatus();
         request.setStatus(responseDto.getStatus());
         request.setGarageResponse(responseDto.getResponse());
         request.setEstimatedArrivalMinutes(responseDto.getEstimatedArrivalMinutes());
 
     ServiceRequest updatedRequest = serviceRequestRepository.save(request);
+    etaService.onStatusChange(updatedRequest, previousStatus);
+    locationTrackingService.onStatusChange(updatedRequest);
     // Notify customer
     var createdNotif = notificationService.create(updatedRequest.getCustomer(), "Request Updated", "Your request #"+updatedRequest.getId()+" status is now "+updatedRequest.getStatus());
-    messagingTemplate.convertAndSend("/topic/notifications."+updatedRequest.getCustomer().getId(), java.util.Map.of("type","CREATED","id", createdNotif.getId()));
+    notificationPublisher.publishCreated(updatedRequest.getCustomer(), createdNotif);
     // Send email to customer about the update
     try {
         User cust = updatedRequest.getCustomer();
@@ -231,27 +179,55 @@ public class ServiceRequestController {
                 "\n\nThank you.";
         emailService.send(cust.getEmail(), subject, body);
     } catch (Exception ignore) {}
+        ServiceRequestResponseDto dto = toDto(updatedRequest);
+        return ResponseEntity.ok(dto);
+    }
+
+    // Last live position of the garage serving the request; 204 until the garage's device has sent one
+    @GetMapping("/{requestId}/location")
+    @PreAuthorize("hasAnyRole('CUSTOMER','GARAGE_OWNER')")
+    public ResponseEntity<?> getLiveLocation(@PathVariable Long requestId, Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        Optional<ServiceRequest> serviceRequest = serviceRequestRepository.findById(requestId);
+        boolean allowed = serviceRequest.isPresent() && (
+                (serviceRequest.get().getCustomer() != null && userPrincipal.getId().equals(serviceRequest.get().getCustomer().getId())) ||
+                (serviceRequest.get().getGarage() != null && serviceRequest.get().getGarage().getUser() != null
+                        && userPrincipal.getId().equals(serviceRequest.get().getGarage().getUser().getId())));
+        if (!allowed) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "Service request not found");
+            return ResponseEntity.badRequest().body(response);
+        }
+        Map<String, Object> position = locationTrackingService.lastPosition(requestId);
+        return position == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(position);
+    }
+
+    private ServiceRequestResponseDto toDto(ServiceRequest req) {
         ServiceRequestResponseDto dto = new ServiceRequestResponseDto(
-            updatedRequest.getId(),
-            updatedRequest.getCustomer().getEmail(),
-            updatedRequest.getCustomer().getFirstName() + " " + updatedRequest.getCustomer().getLastName(),
-            updatedRequest.getCustomer().getPhoneNumber(),
-            updatedRequest.getGarage().getName(),
-            updatedRequest.getGarage().getAddress(),
-            updatedRequest.getGarage().getDescription(),
-            updatedRequest.getService().getName(),
-            updatedRequest.getService().getDescription(),
-            updatedRequest.getService().getPrice(),
-            updatedRequest.getDescription(),
-            updatedRequest.getCreatedAt(),
-            updatedRequest.getStatus() != null ? updatedRequest.getStatus().name() : null,
-            updatedRequest.getGarageResponse(),
-            updatedRequest.getEstimatedArrivalMinutes(),
-            updatedRequest.getCustomerAddress(),
-            updatedRequest.getCustomerLatitude(),
-            updatedRequest.getCustomerLongitude()
+            req.getId(),
+            req.getCustomer().getEmail(),
+            req.getCustomer().getFirstName() + " " + req.getCustomer().getLastName(),
+            req.getCustomer().getPhoneNumber(),
+            req.getGarage().getName(),
+            req.getGarage().getAddress(),
+            req.getGarage().getDescription(),
+            req.getService().getName(),
+            req.getService().getDescription(),
+            req.getService().getPrice(),
+            req.getDescription(),
+            req.getCreatedAt(),
+            req.getStatus() != null ? req.getStatus().name() : null,
+            req.getGarageResponse(),
+            req.getEstimatedArrivalMinutes(),
+            req.getCustomerAddress(),
+            req.getCustomerLatitude(),
+            req.getCustomerLongitude()
         );
-        return ResponseEntity.ok(dto);
+        // Only requests the garage hasn't started yet get a prediction; no routing call per item
+        if (req.getStatus() == ServiceRequest.RequestStatus.PENDING || req.getStatus() == ServiceRequest.RequestStatus.ACCEPTED) {
+            dto.setPredictedArrivalMinutes(etaService.cachedArrivalMinutes(req));
+        }
+        return dto;
     }
 
     public static class ResponseDto {
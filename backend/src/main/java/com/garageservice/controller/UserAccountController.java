@@ -6,6 +6,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+
 @RestController
 @RequestMapping("/api/account")
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -16,10 +18,29 @@ public class UserAccountController {
         this.accountDeletionService = accountDeletionService;
     }
 
+    // ?async=true queues the deletion and answers 202 with a job to poll instead of waiting for it
     @DeleteMapping
-    public ResponseEntity<?> deleteMyAccount(@AuthenticationPrincipal UserPrincipal me) {
+    public ResponseEntity<?> deleteMyAccount(@AuthenticationPrincipal UserPrincipal me,
+                                             @RequestParam(defaultValue = "false") boolean async) {
         if (me == null) return ResponseEntity.status(401).body(java.util.Map.of("message","Unauthorized"));
+        if (async) {
+            String jobId = accountDeletionService.submit(me.getId());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/account/deletion-jobs/" + jobId))
+                    .body(accountDeletionService.jobStatus(jobId, me.getId()));
+        }
         accountDeletionService.deleteUserAndCleanup(me.getId());
         return ResponseEntity.ok(java.util.Map.of("message","Account deleted"));
     }
+
+    // Only the user who started the job sees it. With app.auth.principalSource=claims the principal
+    // comes from the access token (this path is not in app.auth.sensitivePaths), so polling still
+    // works once the account is gone.
+    @GetMapping("/deletion-jobs/{jobId}")
+    public ResponseEntity<?> deletionJob(@AuthenticationPrincipal UserPrincipal me, @PathVariable String jobId) {
+        if (me == null) return ResponseEntity.status(401).body(java.util.Map.of("message","Unauthorized"));
+        var status = accountDeletionService.jobStatus(jobId, me.getId());
+        if (status == null) return ResponseEntity.status(404).body(java.util.Map.of("message","Job not found"));
+        return ResponseEntity.ok(status);
+    }
 }
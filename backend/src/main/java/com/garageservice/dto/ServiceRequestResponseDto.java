@@ -22,6 +22,8 @@ public class ServiceRequestResponseDto {
     private String customerAddress;
     private Double customerLatitude;
     private Double customerLongitude;
+    // Server-side arrival estimate (routing duration + garage workload) for requests not yet in progress
+    private Integer predictedArrivalMinutes;
 
     public ServiceRequestResponseDto(Long id, String customerEmail, String customerName, String customerPhone,
             String garageName, String garageAddress, String garagePhone,
@@ -123,4 +125,7 @@ public class ServiceRequestResponseDto {
 
     public Double getCustomerLongitude() { return customerLongitude; }
     public void setCustomerLongitude(Double customerLongitude) { this.customerLongitude = customerLongitude; }
+
+    public Integer getPredictedArrivalMinutes() { return predictedArrivalMinutes; }
+    public void setPredictedArrivalMinutes(Integer predictedArrivalMinutes) { this.predictedArrivalMinutes = predictedArrivalMinutes; }
 }
@@ -0,0 +1,13 @@
+package com.garageservice.exception;
+
+/** Rejected because of rate limiting or overload; mapped to 429 with a Retry-After header. */
+public class TooManyRequestsException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
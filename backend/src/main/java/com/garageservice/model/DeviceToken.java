@@ -6,11 +6,15 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "device_tokens", indexes = {
     @Index(name = "idx_device_token_user", columnList = "user_id"),
-    @Index(name = "idx_device_token_token", columnList = "token", unique = true)
+    @Index(name = "idx_device_token_token", columnList = "token", unique = true),
+    @Index(name = "idx_device_token_last_seen", columnList = "last_seen_at")
 })
 public class DeviceToken {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "device_token_ids")
+    @TableGenerator(name = "device_token_ids", table = IdGenerators.TABLE, pkColumnName = IdGenerators.PK_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "device_tokens",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -26,6 +30,10 @@ public class DeviceToken {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    // Last time the app registered this token; tokens unseen for long are expired
+    @Column(name = "last_seen_at")
+    private LocalDateTime lastSeenAt;
+
     public DeviceToken() { }
 
     public DeviceToken(User user, String token, String platform) {
@@ -33,6 +41,7 @@ public class DeviceToken {
         this.token = token;
         this.platform = platform;
         this.updatedAt = LocalDateTime.now();
+        this.lastSeenAt = this.updatedAt;
     }
 
     @PrePersist
@@ -51,4 +60,6 @@ public class DeviceToken {
     public void setPlatform(String platform) { this.platform = platform; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    public LocalDateTime getLastSeenAt() { return lastSeenAt; }
+    public void setLastSeenAt(LocalDateTime lastSeenAt) { this.lastSeenAt = lastSeenAt; }
 }
@@ -0,0 +1,16 @@
+package com.garageservice.model;
+
+/**
+ * Shared settings of the table-based id generators. Entities that are inserted in bulk take ids
+ * from id_generators in blocks of ALLOCATION_SIZE (Hibernate's pooled optimizer), which unlike
+ * IDENTITY lets Hibernate batch their INSERTs. IdGeneratorSeeder keeps each row ahead of the
+ * ids already in its table.
+ */
+public final class IdGenerators {
+    public static final String TABLE = "id_generators";
+    public static final String PK_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGenerators() {}
+}
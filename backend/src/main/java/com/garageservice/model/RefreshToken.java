@@ -0,0 +1,64 @@
+package com.garageservice.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One issued refresh token, identified by its jti. Tokens rotated from the same login share
+ * a family id so that reuse of an already rotated token can revoke the whole chain.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "idx_refresh_token_user", columnList = "user_id"),
+    @Index(name = "idx_refresh_token_family", columnList = "family_id"),
+    @Index(name = "idx_refresh_token_expires", columnList = "expires_at")
+})
+public class RefreshToken {
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    @Column(name = "rotated_from", length = 36)
+    private String rotatedFrom;
+
+    @Column(nullable = false)
+    private boolean revoked = false;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public RefreshToken() {}
+
+    public RefreshToken(String id, User user, String familyId, String rotatedFrom, LocalDateTime expiresAt) {
+        this.id = id;
+        this.user = user;
+        this.familyId = familyId;
+        this.rotatedFrom = rotatedFrom;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public User getUser() { return user; }
+    public void setUser(User user) { this.user = user; }
+    public String getFamilyId() { return familyId; }
+    public void setFamilyId(String familyId) { this.familyId = familyId; }
+    public String getRotatedFrom() { return rotatedFrom; }
+    public void setRotatedFrom(String rotatedFrom) { this.rotatedFrom = rotatedFrom; }
+    public boolean isRevoked() { return revoked; }
+    public void setRevoked(boolean revoked) { this.revoked = revoked; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
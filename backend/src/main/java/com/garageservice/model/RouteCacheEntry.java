@@ -0,0 +1,87 @@
+package com.garageservice.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Persistent second-level copy of a routing result so the in-memory cache can be
+ * refilled after a restart without going back to the routing provider.
+ */
+@Entity
+@Table(name = "route_cache", indexes = {
+    @Index(name = "idx_route_cache_expires", columnList = "expires_at"),
+    @Index(name = "idx_route_cache_hits", columnList = "hit_count")
+})
+public class RouteCacheEntry {
+    @Id
+    @Column(name = "cache_key", length = 160)
+    private String cacheKey;
+
+    @Column(nullable = false, length = 32)
+    private String provider;
+
+    private double originLat;
+    private double originLng;
+    private double destLat;
+    private double destLng;
+
+    private double distanceMeters;
+    private double durationSeconds;
+
+    // Route geometry packed with PolylineCodec.pack
+    @Lob
+    private byte[] geometry;
+
+    // "precision" is a reserved word in MySQL
+    @Column(name = "polyline_precision")
+    private Integer precision;
+
+    @Column(name = "hit_count", nullable = false)
+    private long hitCount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public RouteCacheEntry() {}
+
+    public RouteCacheEntry(String cacheKey, String provider, double originLat, double originLng,
+                           double destLat, double destLng, LocalDateTime expiresAt) {
+        this.cacheKey = cacheKey;
+        this.provider = provider;
+        this.originLat = originLat;
+        this.originLng = originLng;
+        this.destLat = destLat;
+        this.destLng = destLng;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getCacheKey() { return cacheKey; }
+    public void setCacheKey(String cacheKey) { this.cacheKey = cacheKey; }
+    public String getProvider() { return provider; }
+    public void setProvider(String provider) { this.provider = provider; }
+    public double getOriginLat() { return originLat; }
+    public void setOriginLat(double originLat) { this.originLat = originLat; }
+    public double getOriginLng() { return originLng; }
+    public void setOriginLng(double originLng) { this.originLng = originLng; }
+    public double getDestLat() { return destLat; }
+    public void setDestLat(double destLat) { this.destLat = destLat; }
+    public double getDestLng() { return destLng; }
+    public void setDestLng(double destLng) { this.destLng = destLng; }
+    public double getDistanceMeters() { return distanceMeters; }
+    public void setDistanceMeters(double distanceMeters) { this.distanceMeters = distanceMeters; }
+    public double getDurationSeconds() { return durationSeconds; }
+    public void setDurationSeconds(double durationSeconds) { this.durationSeconds = durationSeconds; }
+    public byte[] getGeometry() { return geometry; }
+    public void setGeometry(byte[] geometry) { this.geometry = geometry; }
+    public Integer getPrecision() { return precision; }
+    public void setPrecision(Integer precision) { this.precision = precision; }
+    public long getHitCount() { return hitCount; }
+    public void setHitCount(long hitCount) { this.hitCount = hitCount; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
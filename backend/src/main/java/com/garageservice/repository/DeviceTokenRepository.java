@@ -3,12 +3,47 @@ package com.garageservice.repository;
 import com.garageservice.model.DeviceToken;
 import com.garageservice.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface DeviceTokenRepository extends JpaRepository<DeviceToken, Long> {
     Optional<DeviceToken> findByToken(String token);
     List<DeviceToken> findByUser(User user);
-    void deleteByToken(String token);
+
+    // Cached per user by DeviceTokenService: token, platform, lastSeenAt
+    @Query("SELECT d.token, d.platform, d.lastSeenAt FROM DeviceToken d WHERE d.user.id = :userId")
+    List<Object[]> findTokenInfoByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT d.user.id FROM DeviceToken d WHERE d.token = :token")
+    Optional<Long> findUserIdByToken(@Param("token") String token);
+
+    // Upsert, update half: moves the token to the user and marks it seen; 0 when the token is new
+    @Modifying
+    @Transactional
+    @Query("UPDATE DeviceToken d SET d.user = :user, d.platform = :platform, d.lastSeenAt = :now, d.updatedAt = :now " +
+           "WHERE d.token = :token")
+    int refresh(@Param("token") String token, @Param("user") User user, @Param("platform") String platform,
+                @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DeviceToken d WHERE d.token = :token")
+    int deleteByToken(@Param("token") String token);
+
+    // Tokens from before lastSeenAt existed fall back to updatedAt
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DeviceToken d WHERE COALESCE(d.lastSeenAt, d.updatedAt) < :cutoff")
+    int deleteNotSeenSince(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DeviceToken d WHERE d.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
 }
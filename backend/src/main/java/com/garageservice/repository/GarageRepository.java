@@ -1,10 +1,14 @@
 package com.garageservice.repository;
 
+import com.garageservice.dto.GarageSummary;
 import com.garageservice.model.Garage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,6 +16,23 @@ import java.util.Optional;
 @Repository
 public interface GarageRepository extends JpaRepository<Garage, Long> {
     Optional<Garage> findByUserId(Long userId);
+
+    @Query("SELECT g.user.id FROM Garage g WHERE g.id = :garageId")
+    Optional<Long> findOwnerIdById(@Param("garageId") Long garageId);
+
+    // Directory pages in id order; a projection, so the services collection is never touched
+    @Query("SELECT new com.garageservice.dto.GarageSummary(g.id, g.name, g.address, g.latitude, g.longitude) " +
+           "FROM Garage g WHERE g.id > :afterId ORDER BY g.id")
+    List<GarageSummary> findSummariesAfter(@Param("afterId") Long afterId, Pageable limit);
+
+    @Query("SELECT g.id FROM Garage g WHERE g.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    // Bulk delete: skips loading the garage and cascading through its collections
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Garage g WHERE g.id = :garageId")
+    int deleteGarage(@Param("garageId") Long garageId);
     
     @Query("SELECT g FROM Garage g WHERE " +
            "(6371 * acos(cos(radians(:latitude)) * cos(radians(g.latitude)) * " +
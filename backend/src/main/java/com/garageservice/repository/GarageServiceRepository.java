@@ -1,12 +1,36 @@
 package com.garageservice.repository;
 
 import com.garageservice.model.GarageService;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 @Repository
 public interface GarageServiceRepository extends JpaRepository<GarageService, Long> {
+    // Query cache region for findByGarageId, evicted by CatalogCacheService
+    String SERVICES_BY_GARAGE_REGION = "garage-services-by-garage";
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SERVICES_BY_GARAGE_REGION)
+    })
     List<GarageService> findByGarageId(Long garageId);
+
+    // Search index load: id, garage id, name, description, price, duration of every service
+    @Query("SELECT gs.id, gs.garage.id, gs.name, gs.description, gs.price, gs.estimatedDurationMinutes " +
+           "FROM GarageService gs WHERE gs.garage IS NOT NULL")
+    List<Object[]> findIndexRows();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM GarageService gs WHERE gs.garage.id = :garageId")
+    int deleteByGarageId(@Param("garageId") Long garageId);
 }
\ No newline at end of file
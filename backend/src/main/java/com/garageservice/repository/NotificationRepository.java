@@ -1,13 +1,79 @@
 package com.garageservice.repository;
 
 import com.garageservice.model.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     List<Notification> findByUserIdOrderByCreatedAtDesc(Long userId);
     long countByUserIdAndReadFlagFalse(Long userId);
+
+    // Keyset pages over (createdAt, id), newest first; use a Pageable without sort for the limit
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFeed(@Param("userId") Long userId, Pageable limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+           "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFeedBefore(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id, Pageable limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+           "AND (n.createdAt > :createdAt OR (n.createdAt = :createdAt AND n.id > :id)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFeedAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id, Pageable limit);
+
+    // Delta sync beyond the first page: newer than the anchor, older than the cursor
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+           "AND (n.createdAt > :sinceCreatedAt OR (n.createdAt = :sinceCreatedAt AND n.id > :sinceId)) " +
+           "AND (n.createdAt < :beforeCreatedAt OR (n.createdAt = :beforeCreatedAt AND n.id < :beforeId)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFeedBetween(@Param("userId") Long userId,
+                                       @Param("sinceCreatedAt") LocalDateTime sinceCreatedAt, @Param("sinceId") Long sinceId,
+                                       @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt, @Param("beforeId") Long beforeId,
+                                       Pageable limit);
+
+    // Count, newest id and unread count; changes whenever the feed does, so it serves as the ETag source
+    @Query("SELECT COUNT(n), MAX(n.id), SUM(CASE WHEN n.readFlag = false THEN 1 ELSE 0 END) " +
+           "FROM Notification n WHERE n.user.id = :userId")
+    List<Object[]> findFeedVersion(@Param("userId") Long userId);
+
+    // One statement regardless of how many notifications the user has; returns the rows changed
+    @Modifying
+    @Transactional
+    @Query("UPDATE Notification n SET n.readFlag = true WHERE n.user.id = :userId AND n.readFlag = false")
+    int markAllRead(@Param("userId") Long userId);
+
+    // Retention: read notifications older than the cutoff, processed in id ranges
+    @Query("SELECT MIN(n.id), MAX(n.id) FROM Notification n WHERE n.readFlag = true AND n.createdAt < :cutoff")
+    List<Object[]> findExpiredIdRange(@Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.id >= :fromId AND n.id < :toId " +
+           "AND n.readFlag = true AND n.createdAt < :cutoff")
+    long countExpiredInRange(@Param("fromId") Long fromId, @Param("toId") Long toId, @Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Notification n WHERE n.id >= :fromId AND n.id < :toId " +
+           "AND n.readFlag = true AND n.createdAt < :cutoff")
+    int deleteExpiredInRange(@Param("fromId") Long fromId, @Param("toId") Long toId, @Param("cutoff") LocalDateTime cutoff);
+
+    // Account deletion: a user's notifications in chunks of ids
+    @Query("SELECT n.id FROM Notification n WHERE n.user.id = :userId ORDER BY n.id")
+    List<Long> findIdsByUserId(@Param("userId") Long userId, Pageable limit);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
 }
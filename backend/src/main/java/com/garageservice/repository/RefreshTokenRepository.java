@@ -0,0 +1,58 @@
+package com.garageservice.repository;
+
+import com.garageservice.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+    // Atomically consumes a live token; 0 means it was already rotated, revoked or never issued
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.id = :id AND t.user.id = :userId AND t.revoked = false AND t.expiresAt > :now")
+    int revokeIfActive(@Param("id") String id, @Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // Insert-only record of a used legacy token; a second use fails on the primary key instead of merging
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO refresh_tokens (id, user_id, family_id, revoked, expires_at, created_at) " +
+            "VALUES (:id, :userId, :id, true, :expiresAt, :now)", nativeQuery = true)
+    int insertConsumed(@Param("id") String id, @Param("userId") Long userId,
+                       @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    @Query("SELECT t.id, t.expiresAt FROM RefreshToken t WHERE t.familyId = :familyId")
+    List<Object[]> findIdsByFamily(@Param("familyId") String familyId);
+
+    @Query("SELECT t.id, t.expiresAt FROM RefreshToken t WHERE t.user.id = :userId AND t.revoked = false")
+    List<Object[]> findActiveIdsByUser(@Param("userId") Long userId);
+
+    @Query("SELECT t.id, t.expiresAt FROM RefreshToken t WHERE t.revoked = true AND t.expiresAt > :now")
+    List<Object[]> findRevokedIds(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.familyId = :familyId AND t.revoked = false")
+    int revokeFamily(@Param("familyId") String familyId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.user.id = :userId AND t.revoked = false")
+    int revokeAllForUser(@Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken t WHERE t.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
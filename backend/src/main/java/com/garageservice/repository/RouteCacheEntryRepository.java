@@ -0,0 +1,29 @@
+package com.garageservice.repository;
+
+import com.garageservice.model.RouteCacheEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RouteCacheEntryRepository extends JpaRepository<RouteCacheEntry, String> {
+    // Most requested, still valid routes first (used to pre-warm the in-memory cache)
+    List<RouteCacheEntry> findByExpiresAtAfterOrderByHitCountDesc(LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RouteCacheEntry r SET r.hitCount = r.hitCount + :hits WHERE r.cacheKey = :key")
+    int addHits(@Param("key") String key, @Param("hits") long hits);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RouteCacheEntry r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,10 +1,13 @@
 package com.garageservice.repository;
 
 import com.garageservice.model.ServiceRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -15,6 +18,35 @@ public interface ServiceRequestRepository extends JpaRepository<ServiceRequest,
     List<ServiceRequest> findByGarageIdOrderByCreatedAtDesc(Long garageId);
     List<ServiceRequest> findByCustomerIdOrderByCreatedAtDesc(Long customerId);
 
+    // Who may publish (garage owner) and receive (customer) live positions for a request, and where it's heading
+    @Query("SELECT g.user.id, c.id, sr.customerLatitude, sr.customerLongitude, sr.status " +
+           "FROM ServiceRequest sr JOIN sr.garage g JOIN sr.customer c WHERE sr.id = :requestId")
+    List<Object[]> findTrackingTarget(@Param("requestId") Long requestId);
+
+    // Account deletion: requests are kept for the other party, only the reference to the deleted account is cleared
+    @Query("SELECT sr.id FROM ServiceRequest sr WHERE sr.customer.id = :customerId ORDER BY sr.id")
+    List<Long> findIdsByCustomerId(@Param("customerId") Long customerId, Pageable limit);
+
+    @Query("SELECT sr.id FROM ServiceRequest sr WHERE sr.garage.id = :garageId ORDER BY sr.id")
+    List<Long> findIdsByGarageId(@Param("garageId") Long garageId, Pageable limit);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ServiceRequest sr SET sr.customer = null WHERE sr.id IN :ids")
+    int detachCustomer(@Param("ids") List<Long> ids);
+
+    // The garage's services are deleted with it, so the service reference goes as well
+    @Modifying
+    @Transactional
+    @Query("UPDATE ServiceRequest sr SET sr.garage = null, sr.service = null WHERE sr.id IN :ids")
+    int detachGarage(@Param("ids") List<Long> ids);
+
+    // Service durations of a garage's requests in a given status (null when the service has no estimate)
+    @Query("SELECT s.estimatedDurationMinutes FROM ServiceRequest sr LEFT JOIN sr.service s " +
+        "WHERE sr.garage.id = :garageId AND sr.status = :status")
+    List<Integer> findServiceDurations(@Param("garageId") Long garageId,
+                                       @Param("status") ServiceRequest.RequestStatus status);
+
     // Daily aggregated counts per status for a garage between date range (inclusive)
     @Query("SELECT DATE(sr.createdAt) as day, sr.status as status, COUNT(sr) as count " +
         "FROM ServiceRequest sr WHERE sr.garage.id = :garageId " +
@@ -2,7 +2,11 @@ package com.garageservice.repository;
 
 import com.garageservice.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -12,4 +16,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByResetToken(String resetToken);
     Boolean existsByEmail(String email);
     Boolean existsByPhoneNumber(String phoneNumber);
+
+    @Query("SELECT u.email FROM User u WHERE u.id = :userId")
+    Optional<String> findEmailById(@Param("userId") Long userId);
+
+    // Bulk delete: skips loading the user and cascading through its collections
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM User u WHERE u.id = :userId")
+    int deleteUser(@Param("userId") Long userId);
 }
\ No newline at end of file
@@ -8,10 +8,12 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -24,6 +26,16 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    // claims: build the principal from token claims; database: always load the (cached) user
+    @Value("${app.auth.principalSource:claims}")
+    private String principalSource;
+
+    // Paths that always re-read the user from the database, whatever the principal source
+    @Value("${app.auth.sensitivePaths:/api/account}")
+    private String[] sensitivePaths;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
     @Override
@@ -39,11 +51,12 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             if (SecurityContextHolder.getContext().getAuthentication() == null) {
                 String headerAuth = request.getHeader("Authorization");
                 String jwt = parseJwt(request);
+                JwtClaims claims = jwt == null ? null : jwtUtils.verify(jwt);
                 if (jwt == null) {
                     logger.trace("[AuthTokenFilter] No JWT found. Authorization header value: {}", headerAuth);
-                } else if (jwtUtils.validateJwtToken(jwt)) {
-                    String username = jwtUtils.getUserNameFromJwtToken(jwt);
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                } else if (claims != null && !claims.isRefreshToken()) {
+                    String username = claims.getSubject();
+                    UserDetails userDetails = resolvePrincipal(claims, path);
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -62,6 +75,24 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails resolvePrincipal(JwtClaims claims, String path) {
+        if (isSensitive(path)) {
+            return userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+        if ("claims".equalsIgnoreCase(principalSource)) {
+            UserPrincipal fromClaims = claims.toPrincipal();
+            if (fromClaims != null) return fromClaims;
+        }
+        return userDetailsService.loadCachedUserByUsername(claims.getSubject());
+    }
+
+    private boolean isSensitive(String path) {
+        for (String pattern : sensitivePaths) {
+            if (pathMatcher.match(pattern.trim(), path)) return true;
+        }
+        return false;
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
@@ -0,0 +1,56 @@
+package com.garageservice.security;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Claims of a token that has already been parsed and signature-checked by {@link JwtUtils#verify}.
+ */
+public final class JwtClaims {
+    private final String subject;
+    private final Long userId;
+    private final List<String> roles;
+    private final String type;
+    private final String tokenId;
+    private final String familyId;
+    private final Date expiresAt;
+
+    public JwtClaims(String subject, Long userId, List<String> roles, String type, String tokenId, String familyId, Date expiresAt) {
+        this.subject = subject;
+        this.userId = userId;
+        this.roles = roles == null ? List.of() : roles;
+        this.type = type;
+        this.tokenId = tokenId;
+        this.familyId = familyId;
+        this.expiresAt = expiresAt;
+    }
+
+    /** The user's email. */
+    public String getSubject() { return subject; }
+
+    /** User id (uid claim); null for tokens issued before the claim existed. */
+    public Long getUserId() { return userId; }
+
+    public List<String> getRoles() { return roles; }
+
+    /** "refresh" for refresh tokens, null for access tokens. */
+    public String getType() { return type; }
+
+    /** The jti claim, if any. */
+    public String getTokenId() { return tokenId; }
+
+    /** Rotation family (fam claim) of a refresh token. */
+    public String getFamilyId() { return familyId; }
+
+    public Date getExpiresAt() { return expiresAt; }
+
+    public boolean isRefreshToken() {
+        return "refresh".equals(type);
+    }
+
+    /** Principal built from the claims alone, or null if this isn't an access token carrying uid and roles. */
+    public UserPrincipal toPrincipal() {
+        if (isRefreshToken() || userId == null || roles.isEmpty()) return null;
+        return UserPrincipal.fromClaims(userId, subject, roles);
+    }
+}
@@ -1,6 +1,7 @@
 package com.garageservice.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.WebSocketHandler;
@@ -12,6 +13,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
 
 import com.garageservice.service.UserDetailsServiceImpl;
+import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Map;
 import java.util.Optional;
@@ -25,6 +27,9 @@ public class JwtHandshakeInterceptor implements HandshakeInterceptor {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Value("${app.auth.principalSource:claims}")
+    private String principalSource;
+
     @Override
     public boolean beforeHandshake(org.springframework.http.server.ServerHttpRequest request,
                                    org.springframework.http.server.ServerHttpResponse response,
@@ -60,15 +65,17 @@ public class JwtHandshakeInterceptor implements HandshakeInterceptor {
                 return false;
             }
 
-            if (!jwtUtils.validateJwtToken(token)) {
+            JwtClaims claims = jwtUtils.verify(token);
+            if (claims == null || claims.isRefreshToken()) {
                 if (response instanceof org.springframework.http.server.ServletServerHttpResponse servletResponse) {
                     servletResponse.getServletResponse().setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 }
                 return false;
             }
 
-            String email = jwtUtils.getUserNameFromJwtToken(token);
-            var user = userDetailsService.loadUserByUsername(email);
+            String email = claims.getSubject();
+            UserPrincipal fromClaims = "claims".equalsIgnoreCase(principalSource) ? claims.toPrincipal() : null;
+            UserDetails user = fromClaims != null ? fromClaims : userDetailsService.loadCachedUserByUsername(email);
             if (!(user instanceof UserPrincipal up)) {
                 if (response instanceof org.springframework.http.server.ServletServerHttpResponse servletResponse) {
                     servletResponse.getServletResponse().setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -2,13 +2,17 @@ package com.garageservice.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
+import com.garageservice.util.ExpiringCache;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import javax.crypto.SecretKey;
 
 @Component
@@ -24,8 +28,21 @@ public class JwtUtils {
     @Value("${app.jwtRefreshExpirationMs:604800000}")
     private int jwtRefreshExpirationMs;
 
-    private SecretKey key(){
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    // 0 disables the verified-token cache
+    @Value("${app.auth.tokenCacheMaxSize:10000}")
+    private int tokenCacheMaxSize;
+
+    // Built once; both are immutable and safe to share between request threads
+    private SecretKey signingKey;
+    private JwtParser parser;
+    // Access tokens that already passed verify(), until their own exp
+    private ExpiringCache<String, JwtClaims> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verifiedTokens = tokenCacheMaxSize > 0 ? new ExpiringCache<>(tokenCacheMaxSize) : null;
     }
 
     public String generateJwtToken(Authentication authentication) {
@@ -33,53 +50,81 @@ public class JwtUtils {
 
         return Jwts.builder()
                 .setSubject((userPrincipal.getEmail()))
+                .claim("uid", userPrincipal.getId())
                 .claim("roles", userPrincipal.getAuthorities().stream().map(a -> a.getAuthority()).toList())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String generateRefreshToken(Authentication authentication) {
+    /** Refresh token carrying its store id (jti) and rotation family; see RefreshTokenService. */
+    public String generateRefreshToken(Authentication authentication, String tokenId, String familyId, Date expiresAt) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
         return Jwts.builder()
                 .setSubject(userPrincipal.getEmail())
+                .setId(tokenId)
+                .claim("uid", userPrincipal.getId())
+                .claim("fam", familyId)
                 .claim("type", "refresh")
                 .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtRefreshExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .setExpiration(expiresAt)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public boolean isRefreshToken(String token){
-        try {
-            Claims c = Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(token).getBody();
-            return "refresh".equals(c.get("type"));
-        } catch (Exception e){
-            return false;
-        }
+    public long getRefreshExpirationMs() {
+        return jwtRefreshExpirationMs;
     }
 
-
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+    /**
+     * Parses the token and checks its signature and expiry in one pass.
+     * Returns null (after logging why) if the token is not valid.
+     * Access tokens seen before are answered from the cache without re-checking the signature.
+     */
+    public JwtClaims verify(String token) {
+        if (token == null || token.isBlank()) return null;
+        if (verifiedTokens != null) {
+            JwtClaims cached = verifiedTokens.get(token);
+            if (cached != null) return cached;
+        }
+        JwtClaims claims = parse(token);
+        // Refresh tokens are used once and then rotated, so only access tokens are worth keeping
+        if (claims != null && verifiedTokens != null && !claims.isRefreshToken() && claims.getExpiresAt() != null) {
+            verifiedTokens.put(token, claims, claims.getExpiresAt().getTime());
+        }
+        return claims;
     }
 
-    public boolean validateJwtToken(String authToken) {
+    private JwtClaims parse(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-            return true;
+            Claims c = parser.parseClaimsJws(token).getBody();
+            Object uid = c.get("uid");
+            Object roles = c.get("roles");
+            List<String> roleNames = roles instanceof Collection<?> roleList
+                    ? roleList.stream().map(String::valueOf).toList()
+                    : List.of();
+            Object type = c.get("type");
+            Object family = c.get("fam");
+            return new JwtClaims(
+                    c.getSubject(),
+                    uid instanceof Number n ? n.longValue() : null,
+                    roleNames,
+                    type == null ? null : type.toString(),
+                    c.getId(),
+                    family == null ? null : family.toString(),
+                    c.getExpiration());
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
             logger.error("JWT token is expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
             logger.error("JWT token is unsupported: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("JWT signature is invalid: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
         }
-
-        return false;
+        return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,117 @@
+package com.garageservice.security;
+
+import com.garageservice.exception.TooManyRequestsException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Token buckets for login attempts, one per email and one per client IP. Buckets live in a fixed
+ * number of stripes, each an LRU map with its own lock and size cap, so a burst spread over many
+ * emails or addresses can neither contend on one lock nor grow memory without bound.
+ */
+@Component
+public class LoginRateLimiter {
+    private static final int STRIPES = 32;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    @Value("${app.auth.rateLimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.auth.rateLimit.emailCapacity:5}")
+    private int emailCapacity;
+
+    @Value("${app.auth.rateLimit.emailPerMinute:5}")
+    private double emailPerMinute;
+
+    @Value("${app.auth.rateLimit.ipCapacity:30}")
+    private int ipCapacity;
+
+    @Value("${app.auth.rateLimit.ipPerMinute:30}")
+    private double ipPerMinute;
+
+    // Only enable behind a proxy that overwrites X-Forwarded-For, otherwise clients can pick their own key
+    @Value("${app.auth.rateLimit.trustForwardedFor:false}")
+    private boolean trustForwardedFor;
+
+    public LoginRateLimiter(@Value("${app.auth.rateLimit.maxKeys:100000}") int maxKeys) {
+        int perStripe = Math.max(16, maxKeys / STRIPES);
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe(perStripe);
+    }
+
+    /** Takes one token from the IP and the email bucket, or throws if either is empty. */
+    public void acquire(String email, HttpServletRequest request) {
+        if (!enabled) return;
+        long now = System.nanoTime();
+        long waitMs = take("ip:" + clientIp(request), ipCapacity, ipPerMinute, now);
+        if (waitMs == 0 && email != null) {
+            waitMs = take("email:" + email.trim().toLowerCase(Locale.ROOT), emailCapacity, emailPerMinute, now);
+        }
+        if (waitMs > 0) {
+            throw new TooManyRequestsException("Too many login attempts, try again later", (waitMs + 999) / 1000);
+        }
+    }
+
+    String clientIp(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                int comma = forwarded.indexOf(',');
+                return (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    // Returns 0 if a token was taken, else milliseconds until one is available
+    private long take(String key, int capacity, double perMinute, long now) {
+        Stripe stripe = stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+        synchronized (stripe) {
+            Bucket bucket = stripe.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                stripe.put(key, bucket);
+            }
+            return bucket.take(capacity, perMinute / 60_000_000_000.0, now);
+        }
+    }
+
+    private static final class Stripe extends LinkedHashMap<String, Bucket> {
+        private final int maxKeys;
+
+        Stripe(int maxKeys) {
+            super(64, 0.75f, true);
+            this.maxKeys = maxKeys;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            return size() > maxKeys;
+        }
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        long take(int capacity, double perNano, long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * perNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / perNano / 1_000_000));
+        }
+    }
+}
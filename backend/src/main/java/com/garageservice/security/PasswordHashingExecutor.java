@@ -0,0 +1,72 @@
+package com.garageservice.security;
+
+import com.garageservice.exception.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt work (login verification, hashing new passwords) on a small fixed pool with a
+ * bounded queue, so a burst of logins can use at most app.auth.hashing.threads cores instead of
+ * every Tomcat thread. When the queue is full or a task waits too long the caller gets a 429.
+ */
+@Component
+public class PasswordHashingExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    public PasswordHashingExecutor(@Value("${app.auth.hashing.threads:0}") int threads,
+                                   @Value("${app.auth.hashing.queueSize:64}") int queueSize,
+                                   @Value("${app.auth.hashing.timeoutMs:5000}") long timeoutMs) {
+        // Default: half the cores, leaving the rest for regular API traffic
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+                r -> {
+                    Thread t = new Thread(r, "password-hashing-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMs = timeoutMs;
+    }
+
+    /** Runs the task on the hashing pool and returns its result; task exceptions are rethrown unchanged. */
+    public <T> T call(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            logger.warn("[PasswordHashingExecutor] Queue full ({} waiting), rejecting", executor.getQueue().size());
+            throw new TooManyRequestsException("Server busy, try again shortly", 1);
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new TooManyRequestsException("Server busy, try again shortly", 1);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
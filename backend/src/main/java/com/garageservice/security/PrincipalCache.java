@@ -0,0 +1,44 @@
+package com.garageservice.security;
+
+import com.garageservice.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Authenticated principals keyed by JWT subject (email), so token-authenticated requests
+ * and WebSocket handshakes don't reload the user row every time. Entries live for
+ * app.auth.principalCacheTtlMs (kept below the access-token lifetime) and must be evicted
+ * whenever the password, role or account itself changes.
+ */
+@Component
+public class PrincipalCache {
+
+    private final ExpiringCache<String, UserPrincipal> cache;
+    private final long ttlMs;
+
+    public PrincipalCache(@Value("${app.auth.principalCacheTtlMs:300000}") long ttlMs,
+                          @Value("${app.auth.principalCacheMaxSize:10000}") int maxSize,
+                          @Value("${app.jwtExpirationMs:86400000}") long jwtExpirationMs) {
+        this.ttlMs = Math.min(ttlMs, jwtExpirationMs);
+        this.cache = new ExpiringCache<>(maxSize);
+    }
+
+    public UserPrincipal get(String email, Supplier<UserPrincipal> loader) {
+        UserPrincipal principal = cache.get(email);
+        if (principal == null) {
+            principal = loader.get();
+            if (ttlMs > 0) cache.put(email, principal, System.currentTimeMillis() + ttlMs);
+        }
+        return principal;
+    }
+
+    public void evict(String email) {
+        if (email != null) cache.remove(email);
+    }
+
+    public void evictUser(Long userId) {
+        if (userId != null) cache.removeIf((email, p) -> userId.equals(p.getId()));
+    }
+}
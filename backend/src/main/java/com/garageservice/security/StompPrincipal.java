@@ -2,17 +2,23 @@ package com.garageservice.security;
 
 import java.security.Principal;
 
+/**
+ * WebSocket session principal. The name is the user id, so user destinations
+ * (/user/queue/...) and the session registry are keyed by id rather than email.
+ */
 public class StompPrincipal implements Principal {
     private final Long userId;
-    private final String name; // typically email
+    private final String email;
 
-    public StompPrincipal(Long userId, String name) {
+    public StompPrincipal(Long userId, String email) {
         this.userId = userId;
-        this.name = name;
+        this.email = email;
     }
 
     public Long getUserId() { return userId; }
 
+    public String getEmail() { return email; }
+
     @Override
-    public String getName() { return name; }
+    public String getName() { return String.valueOf(userId); }
 }
@@ -1,8 +1,9 @@
 package com.garageservice.security;
 
+import com.garageservice.config.CacheEvictionBroadcast;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
-import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
@@ -12,17 +13,26 @@ import java.security.Principal;
 
 @Component
 public class SubscriptionSecurityInterceptor implements ChannelInterceptor {
+    // Old clients subscribe to /topic/notifications.{userId}; keep accepting that while they are around
+    @Value("${app.websocket.legacyTopic:true}")
+    private boolean legacyTopic;
+
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
         StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        // Node-to-node channel; clients may neither read nor write it
+        if (StompCommand.SEND.equals(accessor.getCommand())
+                && CacheEvictionBroadcast.DESTINATION.equals(accessor.getDestination())) {
+            throw new IllegalArgumentException("Forbidden destination " + accessor.getDestination());
+        }
         if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
             Principal user = accessor.getUser();
             String dest = accessor.getDestination();
             if (user instanceof StompPrincipal sp && dest != null) {
-                String allowed = "/topic/notifications." + sp.getUserId();
-                if (!dest.equals(allowed)) {
-                    throw new IllegalArgumentException("Forbidden subscription to " + dest);
-                }
+                // User destinations are resolved to the subscriber's own sessions, so they need no id check
+                if (dest.startsWith("/user/queue/")) return message;
+                if (legacyTopic && dest.equals("/topic/notifications." + sp.getUserId())) return message;
+                throw new IllegalArgumentException("Forbidden subscription to " + dest);
             }
         }
         return message;
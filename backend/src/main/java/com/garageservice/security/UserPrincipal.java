@@ -42,6 +42,17 @@ public class UserPrincipal implements UserDetails {
         );
     }
 
+    /**
+     * Principal rebuilt from verified access-token claims. Carries no password or names;
+     * use {@link #create(User)} where those are needed.
+     */
+    public static UserPrincipal fromClaims(Long id, String email, Collection<String> roles) {
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(r -> (GrantedAuthority) new SimpleGrantedAuthority(r))
+                .toList();
+        return new UserPrincipal(id, null, null, email, null, authorities);
+    }
+
     public Long getId() {
         return id;
     }
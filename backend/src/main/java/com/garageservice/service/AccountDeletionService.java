@@ -1,63 +1,241 @@
 package com.garageservice.service;
 
-import com.garageservice.model.*;
 import com.garageservice.repository.*;
+import com.garageservice.security.PrincipalCache;
+import com.garageservice.util.ExpiringCache;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Deletes an account with set-based statements. Notifications are deleted and service requests
+ * detached in chunks of app.account.deletion.batchSize ids, each chunk in its own short
+ * transaction, so a large account never holds locks for long. A last transaction sweeps up rows
+ * created meanwhile and removes the device tokens, the garage with its services and the user.
+ * Safe to re-run if interrupted: every step only touches what is still left.
+ *
+ * submit() runs the same deletion as a background job whose status can be polled by job id.
+ * Jobs run and are tracked in memory on the node that accepted them, so polling needs a single
+ * node or sticky sessions; another node answers as if the job were unknown.
+ */
 @Service
 public class AccountDeletionService {
+    private static final Logger logger = LoggerFactory.getLogger(AccountDeletionService.class);
+
+    public enum JobStatus { PENDING, RUNNING, DONE, FAILED }
+
     private final UserRepository userRepository;
-    private final DeviceTokenRepository deviceTokenRepository;
+    private final DeviceTokenService deviceTokenService;
     private final NotificationRepository notificationRepository;
     private final ServiceRequestRepository serviceRequestRepository;
     private final GarageRepository garageRepository;
+    private final GarageServiceRepository garageServiceRepository;
+    private final PrincipalCache principalCache;
+    private final RefreshTokenService refreshTokenService;
+    private final NotificationService notificationService;
+    private final GarageDirectoryService garageDirectoryService;
+    private final GarageSearchIndex garageSearchIndex;
+    private final LocationTrackingService locationTrackingService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.account.deletion.batchSize:500}")
+    private int batchSize;
+
+    // Pause between chunks so other writers on the same tables can get in
+    @Value("${app.account.deletion.pauseMs:10}")
+    private long pauseMs;
+
+    // How long a finished job's status stays available
+    @Value("${app.account.deletion.jobTtlMs:3600000}")
+    private long jobTtlMs;
+
+    private final ExpiringCache<String, Job> jobs = new ExpiringCache<>(10_000);
+    private final Map<Long, String> activeJobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "account-deletion");
+        t.setDaemon(true);
+        return t;
+    });
 
     public AccountDeletionService(UserRepository userRepository,
-                                  DeviceTokenRepository deviceTokenRepository,
+                                  DeviceTokenService deviceTokenService,
                                   NotificationRepository notificationRepository,
                                   ServiceRequestRepository serviceRequestRepository,
-                                  GarageRepository garageRepository) {
+                                  GarageRepository garageRepository,
+                                  GarageServiceRepository garageServiceRepository,
+                                  PrincipalCache principalCache,
+                                  RefreshTokenService refreshTokenService,
+                                  NotificationService notificationService,
+                                  GarageDirectoryService garageDirectoryService,
+                                  GarageSearchIndex garageSearchIndex,
+                                  LocationTrackingService locationTrackingService,
+                                  PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
-        this.deviceTokenRepository = deviceTokenRepository;
+        this.deviceTokenService = deviceTokenService;
         this.notificationRepository = notificationRepository;
         this.serviceRequestRepository = serviceRequestRepository;
         this.garageRepository = garageRepository;
+        this.garageServiceRepository = garageServiceRepository;
+        this.principalCache = principalCache;
+        this.refreshTokenService = refreshTokenService;
+        this.notificationService = notificationService;
+        this.garageDirectoryService = garageDirectoryService;
+        this.garageSearchIndex = garageSearchIndex;
+        this.locationTrackingService = locationTrackingService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    @Transactional
     public void deleteUserAndCleanup(Long userId) {
-        var userOpt = userRepository.findById(userId);
-        if (userOpt.isEmpty()) return;
-        var user = userOpt.get();
+        var email = userRepository.findEmailById(userId);
+        if (email.isEmpty()) return;
 
-        // 1) Delete notifications linked to user
-        notificationRepository.deleteAll(notificationRepository.findByUserIdOrderByCreatedAtDesc(userId));
+        // 1) No new sessions from here on (also rejects outstanding refresh tokens in memory)
+        inTransaction(() -> { refreshTokenService.deleteAllForUser(userId); return null; });
 
-        // 2) Delete device tokens linked to user
-    deviceTokenRepository.deleteAll(deviceTokenRepository.findByUser(user));
+        // 2) Notifications, then the user's requests as customer, chunk by chunk
+        Pageable chunk = PageRequest.of(0, batchSize);
+        long notifications = drain(() -> deleteNotifications(userId, chunk));
+        long asCustomer = drain(() -> detachCustomer(userId, chunk));
 
-        // 3) Detach user from service requests as customer
-        for (var req : serviceRequestRepository.findByCustomerId(userId)) {
-            req.setCustomer(null);
-            serviceRequestRepository.save(req);
-        }
+        // 3) Requests pointing at the user's garage
+        Long garageId = garageRepository.findIdByUserId(userId).orElse(null);
+        long asGarage = garageId == null ? 0 : drain(() -> detachGarage(garageId, chunk));
 
-        // 4) If user owns a garage, delete it (cascade to services/requests per mapping)
-        var garage = user.getGarage();
-        if (garage != null) {
-            // Break the user<->garage link first to avoid constraint issues
-            garage.setUser(null);
-            garageRepository.save(garage);
-            // Null-out garage reference on any service requests pointing to this garage
-            for (var req : serviceRequestRepository.findByGarageId(garage.getId())) {
-                req.setGarage(null);
-                serviceRequestRepository.save(req);
+        // 4) Whatever was created meanwhile, then the rows that reference the user directly
+        inTransaction(() -> {
+            deleteNotifications(userId, Pageable.unpaged());
+            detachCustomer(userId, Pageable.unpaged());
+            deviceTokenService.deleteAllForUser(userId);
+            if (garageId != null) {
+                detachGarage(garageId, Pageable.unpaged());
+                garageServiceRepository.deleteByGarageId(garageId);
+                garageRepository.deleteGarage(garageId);
             }
-            garageRepository.delete(garage);
+            return userRepository.deleteUser(userId);
+        });
+
+        notificationService.evictUnreadCount(userId);
+        if (garageId != null) {
+            garageDirectoryService.invalidate();
+            garageSearchIndex.removeGarage(garageId);
+        }
+        principalCache.evict(email.get());
+        logger.info("[AccountDeletionService] Deleted user {}: {} notifications, {} customer and {} garage requests detached",
+                userId, notifications, asCustomer, asGarage);
+    }
+
+    /** Queues the deletion and returns a job id for {@link #jobStatus}; a user already queued gets the existing job. */
+    public String submit(Long userId) {
+        String existing = activeJobs.get(userId);
+        if (existing != null) return existing;
+        Job job = new Job(UUID.randomUUID().toString(), userId);
+        if (activeJobs.putIfAbsent(userId, job.id) != null) return activeJobs.get(userId);
+        jobs.put(job.id, job, Long.MAX_VALUE);
+        executor.execute(() -> run(job));
+        return job.id;
+    }
+
+    /** Status of a job submitted by the given user, or null if it is unknown, expired or someone else's. */
+    public Map<String, Object> jobStatus(String jobId, Long userId) {
+        Job job = jobs.get(jobId);
+        if (job == null || !job.userId.equals(userId)) return null;
+        Map<String, Object> status = new HashMap<>();
+        status.put("jobId", job.id);
+        status.put("status", job.status.name());
+        status.put("submittedAt", job.submittedAt);
+        if (job.finishedAt > 0) status.put("finishedAt", job.finishedAt);
+        return status;
+    }
+
+    private void run(Job job) {
+        job.status = JobStatus.RUNNING;
+        try {
+            deleteUserAndCleanup(job.userId);
+            job.status = JobStatus.DONE;
+        } catch (Exception e) {
+            logger.warn("[AccountDeletionService] Deleting user {} failed: {}", job.userId, e.getMessage());
+            job.status = JobStatus.FAILED;
+        } finally {
+            job.finishedAt = System.currentTimeMillis();
+            activeJobs.remove(job.userId);
+            jobs.put(job.id, job, job.finishedAt + jobTtlMs);
+        }
+    }
+
+    private int deleteNotifications(Long userId, Pageable limit) {
+        List<Long> ids = notificationRepository.findIdsByUserId(userId, limit);
+        return ids.isEmpty() ? 0 : notificationRepository.deleteByIds(ids);
+    }
+
+    private int detachCustomer(Long userId, Pageable limit) {
+        List<Long> ids = serviceRequestRepository.findIdsByCustomerId(userId, limit);
+        if (ids.isEmpty()) return 0;
+        locationTrackingService.forget(ids);
+        return serviceRequestRepository.detachCustomer(ids);
+    }
+
+    private int detachGarage(Long garageId, Pageable limit) {
+        List<Long> ids = serviceRequestRepository.findIdsByGarageId(garageId, limit);
+        if (ids.isEmpty()) return 0;
+        locationTrackingService.forget(ids);
+        return serviceRequestRepository.detachGarage(ids);
+    }
+
+    // Runs the step in its own transaction until a chunk comes back short; returns the total rows affected
+    private long drain(Supplier<Integer> step) {
+        long total = 0;
+        int affected;
+        do {
+            affected = inTransaction(step);
+            total += affected;
+            if (affected >= batchSize) pause();
+        } while (affected >= batchSize);
+        return total;
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        return transactionTemplate.execute(status -> work.get());
+    }
+
+    private void pause() {
+        if (pauseMs <= 0) return;
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+    }
 
-        // 5) Finally delete the user
-        userRepository.delete(user);
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class Job {
+        final String id;
+        final Long userId;
+        final long submittedAt = System.currentTimeMillis();
+        volatile JobStatus status = JobStatus.PENDING;
+        volatile long finishedAt;
+
+        Job(String id, Long userId) {
+            this.id = id;
+            this.userId = userId;
+        }
     }
 }
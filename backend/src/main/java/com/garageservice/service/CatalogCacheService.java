@@ -0,0 +1,56 @@
+package com.garageservice.service;
+
+import com.garageservice.model.Garage;
+import com.garageservice.model.GarageService;
+import com.garageservice.repository.GarageServiceRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Evictions for the cached garage catalog (second-level cache regions of Garage, Garage.services
+ * and GarageService, plus the findByGarageId query region). Hibernate already keeps these in step
+ * with writes made through JPA on this node; the controllers call these after their writes so
+ * the garage's service list is rebuilt from committed rows rather than patched, and so writes that
+ * bypass the entity (bulk statements) drop the affected entries too. Entries also expire after
+ * the time-to-live in ehcache.xml, which bounds how long another node can serve a stale copy.
+ */
+@Service
+public class CatalogCacheService {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogCacheService.class);
+    private static final String GARAGE_SERVICES_ROLE = Garage.class.getName() + ".services";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public void evictGarage(Long garageId) {
+        if (garageId == null) return;
+        try {
+            Cache cache = cache();
+            cache.evictEntityData(Garage.class, garageId);
+            cache.evictCollectionData(GARAGE_SERVICES_ROLE, garageId);
+        } catch (Exception e) {
+            logger.warn("[CatalogCacheService] Could not evict garage {}: {}", garageId, e.getMessage());
+        }
+    }
+
+    /** After a service was added, changed or removed: its entry, the garage's collection and the list query. */
+    public void evictServices(Long garageId, Long serviceId) {
+        try {
+            Cache cache = cache();
+            if (serviceId != null) cache.evictEntityData(GarageService.class, serviceId);
+            if (garageId != null) cache.evictCollectionData(GARAGE_SERVICES_ROLE, garageId);
+            cache.evictQueryRegion(GarageServiceRepository.SERVICES_BY_GARAGE_REGION);
+        } catch (Exception e) {
+            logger.warn("[CatalogCacheService] Could not evict services of garage {}: {}", garageId, e.getMessage());
+        }
+    }
+
+    private Cache cache() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+}
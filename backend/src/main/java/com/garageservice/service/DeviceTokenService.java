@@ -1,33 +1,97 @@
 package com.garageservice.service;
 
+import com.garageservice.config.CacheEvictionBroadcast;
 import com.garageservice.model.DeviceToken;
 import com.garageservice.model.User;
 import com.garageservice.repository.DeviceTokenRepository;
+import com.garageservice.util.ExpiringCache;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
+/**
+ * FCM device tokens. Each user's tokens are cached for app.push.tokenCacheTtlMs and the entry is
+ * dropped whenever one of them is registered, moved to another user or removed, so pushes
+ * normally need no query. Evictions are also sent to the other nodes through
+ * {@link CacheEvictionBroadcast}, so a token that moves to another user stops receiving the old
+ * owner's pushes everywhere, not just on the node that handled the move. Registering a token the user already has (every app launch) only
+ * writes when its platform changed or it was last marked seen more than
+ * app.push.tokenTouchIntervalMs ago; otherwise the token row is upserted by its unique value.
+ * Tokens not seen for app.push.tokenMaxIdleDays are deleted by a nightly job.
+ */
 @Service
 public class DeviceTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(DeviceTokenService.class);
+
+    private static final String CACHE = "device-tokens";
+
     @Autowired
     private DeviceTokenRepository deviceTokenRepository;
 
-    public DeviceToken register(User user, String token, String platform){
-        Optional<DeviceToken> existing = deviceTokenRepository.findByToken(token);
-        DeviceToken dt = existing.orElseGet(() -> new DeviceToken(user, token, platform));
-        dt.setUser(user);
-        dt.setPlatform(platform);
-        return deviceTokenRepository.save(dt);
+    @Autowired
+    private CacheEvictionBroadcast cacheEvictionBroadcast;
+
+    @Value("${app.push.tokenCacheTtlMs:600000}")
+    private long tokenCacheTtlMs;
+
+    @Value("${app.push.tokenTouchIntervalMs:86400000}")
+    private long tokenTouchIntervalMs;
+
+    @Value("${app.push.tokenMaxIdleDays:60}")
+    private int tokenMaxIdleDays;
+
+    private final ExpiringCache<Long, List<CachedToken>> userTokens = new ExpiringCache<>(10_000);
+
+    @PostConstruct
+    void init(){
+        cacheEvictionBroadcast.listen(CACHE, key -> {
+            if ("*".equals(key)) userTokens.clear();
+            else userTokens.remove(Long.valueOf(key));
+        });
+    }
+
+    public void register(User user, String token, String platform){
+        LocalDateTime now = LocalDateTime.now();
+        CachedToken known = cachedTokens(user.getId()).stream()
+                .filter(t -> t.token.equals(token)).findFirst().orElse(null);
+        if (known != null && Objects.equals(known.platform, platform) && known.lastSeenAt != null
+                && known.lastSeenAt.isAfter(now.minus(Duration.ofMillis(tokenTouchIntervalMs)))) {
+            return;
+        }
+        // The token may move between users (sign out and in on the same device)
+        Long previousOwner = known != null ? user.getId() : deviceTokenRepository.findUserIdByToken(token).orElse(null);
+        if (deviceTokenRepository.refresh(token, user, platform, now) == 0) {
+            try {
+                deviceTokenRepository.save(new DeviceToken(user, token, platform));
+            } catch (DataIntegrityViolationException e) {
+                // Registered concurrently (unique index on token); take it over
+                deviceTokenRepository.refresh(token, user, platform, now);
+            }
+        }
+        if (previousOwner != null && !previousOwner.equals(user.getId())) evict(previousOwner);
+        evict(user.getId());
     }
 
     public void removeByToken(String token){
+        Optional<Long> owner = deviceTokenRepository.findUserIdByToken(token);
         deviceTokenRepository.deleteByToken(token);
+        owner.ifPresent(this::evict);
     }
 
-    public List<DeviceToken> tokensFor(User user){
-        return deviceTokenRepository.findByUser(user);
+    /** Token strings to push to, from the cache when possible. */
+    public List<String> tokensFor(Long userId){
+        return cachedTokens(userId).stream().map(t -> t.token).toList();
     }
 
     public Optional<DeviceToken> findByToken(String token){
@@ -36,5 +100,44 @@ public class DeviceTokenService {
 
     public void delete(DeviceToken token){
         deviceTokenRepository.delete(token);
+        if (token.getUser() != null) evict(token.getUser().getId());
     }
+
+    public void deleteAllForUser(Long userId){
+        deviceTokenRepository.deleteByUserId(userId);
+        evict(userId);
+    }
+
+    @Scheduled(cron = "${app.push.tokenExpiryCron:0 0 4 * * *}")
+    public void expireStaleTokens(){
+        try {
+            int removed = deviceTokenRepository.deleteNotSeenSince(LocalDateTime.now().minusDays(tokenMaxIdleDays));
+            if (removed > 0) {
+                // Only the node whose run deleted the rows sees removed > 0
+                userTokens.clear();
+                cacheEvictionBroadcast.publish(CACHE, "*");
+                logger.info("[DeviceTokenService] Removed {} device tokens not seen for {} days", removed, tokenMaxIdleDays);
+            }
+        } catch (Exception e) {
+            logger.warn("[DeviceTokenService] Token expiry failed: {}", e.getMessage());
+        }
+    }
+
+    private void evict(Long userId){
+        userTokens.remove(userId);
+        cacheEvictionBroadcast.publish(CACHE, userId);
+    }
+
+    private List<CachedToken> cachedTokens(Long userId){
+        List<CachedToken> tokens = userTokens.get(userId);
+        if (tokens == null) {
+            tokens = deviceTokenRepository.findTokenInfoByUserId(userId).stream()
+                    .map(r -> new CachedToken((String) r[0], (String) r[1], (LocalDateTime) r[2]))
+                    .toList();
+            userTokens.put(userId, tokens, System.currentTimeMillis() + tokenCacheTtlMs);
+        }
+        return tokens;
+    }
+
+    private record CachedToken(String token, String platform, LocalDateTime lastSeenAt) {}
 }
@@ -0,0 +1,209 @@
+package com.garageservice.service;
+
+import com.garageservice.dto.RoadDistanceResponse;
+import com.garageservice.model.Garage;
+import com.garageservice.model.ServiceRequest;
+import com.garageservice.repository.ServiceRequestRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-side arrival estimate for a garage reaching a customer: road travel time from the
+ * routing cache plus the time the garage still needs for the jobs it has IN_PROGRESS.
+ * The per-garage workload is loaded once, then kept up to date from status changes and
+ * reloaded periodically to pick up changes made on other nodes.
+ *
+ * The cachedArrivalMinutes variants never call the routing provider: they use a route already in
+ * memory, or the straight-line estimate, so list views cost no network round trip per item. A
+ * route that was missing is fetched in the background so later estimates use road time.
+ */
+@Service
+public class EtaService {
+    private static final Logger logger = LoggerFactory.getLogger(EtaService.class);
+
+    @Autowired
+    private ServiceRequestRepository serviceRequestRepository;
+
+    @Autowired
+    private RoutingService routingService;
+
+    // Used for services without estimatedDurationMinutes
+    @Value("${app.eta.defaultServiceMinutes:60}")
+    private int defaultServiceMinutes;
+
+    @Value("${app.eta.workloadRefreshMinutes:10}")
+    private long workloadRefreshMinutes;
+
+    // Straight-line speed used when the routing provider is unavailable
+    @Value("${app.eta.fallbackSpeedKmh:30}")
+    private double fallbackSpeedKmh;
+
+    private final ConcurrentHashMap<Long, Workload> workloads = new ConcurrentHashMap<>();
+    // Background route fetches; when the queue is full a miss just keeps the straight-line estimate
+    private final Set<String> warming = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor routeWarmer = new ThreadPoolExecutor(1, 2, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(200), r -> {
+                Thread t = new Thread(r, "eta-route-warmer");
+                t.setDaemon(true);
+                return t;
+            });
+
+    /** Estimated minutes until the garage can reach the given point, or null if the garage has no location. */
+    public Integer estimateArrivalMinutes(Garage garage, double latitude, double longitude) {
+        if (garage == null || garage.getId() == null || garage.getLatitude() == null || garage.getLongitude() == null) {
+            return null;
+        }
+        double travel = travelMinutes(garage.getLatitude(), garage.getLongitude(), latitude, longitude);
+        return (int) Math.ceil(travel + workload(garage.getId()).remainingMinutes());
+    }
+
+    public Integer estimateArrivalMinutes(ServiceRequest request) {
+        if (request.getCustomerLatitude() == null || request.getCustomerLongitude() == null) return null;
+        return estimateArrivalMinutes(request.getGarage(), request.getCustomerLatitude(), request.getCustomerLongitude());
+    }
+
+    /** Like {@link #estimateArrivalMinutes(Garage, double, double)} but only with a route already cached in memory. */
+    public Integer cachedArrivalMinutes(Garage garage, double latitude, double longitude) {
+        if (garage == null || garage.getId() == null || garage.getLatitude() == null || garage.getLongitude() == null) {
+            return null;
+        }
+        double travel = cachedTravelMinutes(garage.getLatitude(), garage.getLongitude(), latitude, longitude);
+        return (int) Math.ceil(travel + workload(garage.getId()).remainingMinutes());
+    }
+
+    public Integer cachedArrivalMinutes(ServiceRequest request) {
+        if (request.getCustomerLatitude() == null || request.getCustomerLongitude() == null) return null;
+        return cachedArrivalMinutes(request.getGarage(), request.getCustomerLatitude(), request.getCustomerLongitude());
+    }
+
+    /** Road travel time in minutes, falling back to straight-line distance if routing fails. */
+    public double travelMinutes(double originLat, double originLng, double destLat, double destLng) {
+        try {
+            RoadDistanceResponse route = routingService.route(originLat, originLng, destLat, destLng);
+            if (route != null) return route.getDurationMinutes();
+        } catch (Exception e) {
+            logger.debug("[EtaService] Routing unavailable, using straight-line estimate: {}", e.getMessage());
+        }
+        return straightLineMinutes(originLat, originLng, destLat, destLng);
+    }
+
+    /** Road travel time if the route is cached in memory, otherwise the straight-line estimate. */
+    public double cachedTravelMinutes(double originLat, double originLng, double destLat, double destLng) {
+        RoadDistanceResponse route = routingService.cachedRoute(originLat, originLng, destLat, destLng);
+        if (route != null) return route.getDurationMinutes();
+        warmRoute(originLat, originLng, destLat, destLng);
+        return straightLineMinutes(originLat, originLng, destLat, destLng);
+    }
+
+    private void warmRoute(double originLat, double originLng, double destLat, double destLng) {
+        String key = originLat + "," + originLng + ";" + destLat + "," + destLng;
+        if (!warming.add(key)) return;
+        try {
+            routeWarmer.execute(() -> {
+                try {
+                    routingService.route(originLat, originLng, destLat, destLng);
+                } catch (Exception e) {
+                    logger.debug("[EtaService] Background route fetch failed: {}", e.getMessage());
+                } finally {
+                    warming.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            warming.remove(key);
+        }
+    }
+
+    /** Travel time over the straight-line distance at app.eta.fallbackSpeedKmh; no I/O. */
+    public double straightLineMinutes(double originLat, double originLng, double destLat, double destLng) {
+        return haversineKm(originLat, originLng, destLat, destLng) / fallbackSpeedKmh * 60.0;
+    }
+
+    /** Applies a status transition to the cached workload of the request's garage. */
+    public void onStatusChange(ServiceRequest request, ServiceRequest.RequestStatus previous) {
+        if (request.getGarage() == null || previous == request.getStatus()) return;
+        Workload w = workloads.get(request.getGarage().getId());
+        if (w == null) return; // not loaded yet; the first load reads current state
+        int minutes = durationOf(request.getService() == null ? null : request.getService().getEstimatedDurationMinutes());
+        if (previous == ServiceRequest.RequestStatus.IN_PROGRESS) {
+            w.remove(minutes);
+        } else if (request.getStatus() == ServiceRequest.RequestStatus.IN_PROGRESS) {
+            w.add(minutes);
+        }
+    }
+
+    public int inProgressCount(Long garageId) {
+        return workload(garageId).count.get();
+    }
+
+    private Workload workload(Long garageId) {
+        Workload w = workloads.get(garageId);
+        if (w == null || w.isStale(workloadRefreshMinutes)) {
+            w = load(garageId);
+            workloads.put(garageId, w);
+        }
+        return w;
+    }
+
+    private Workload load(Long garageId) {
+        Workload w = new Workload();
+        List<Integer> durations = serviceRequestRepository.findServiceDurations(garageId, ServiceRequest.RequestStatus.IN_PROGRESS);
+        for (Integer d : durations) w.add(durationOf(d));
+        return w;
+    }
+
+    private int durationOf(Integer minutes) {
+        return minutes == null || minutes <= 0 ? defaultServiceMinutes : minutes;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        routeWarmer.shutdownNow();
+    }
+
+    static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 6371 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    private static final class Workload {
+        final AtomicInteger count = new AtomicInteger();
+        final AtomicLong totalMinutes = new AtomicLong();
+        final long loadedAt = System.currentTimeMillis();
+
+        void add(int minutes) {
+            count.incrementAndGet();
+            totalMinutes.addAndGet(minutes);
+        }
+
+        void remove(int minutes) {
+            if (count.decrementAndGet() < 0) count.set(0);
+            if (totalMinutes.addAndGet(-minutes) < 0) totalMinutes.set(0);
+        }
+
+        // Jobs in progress are on average half done
+        double remainingMinutes() {
+            return totalMinutes.get() / 2.0;
+        }
+
+        boolean isStale(long refreshMinutes) {
+            return System.currentTimeMillis() - loadedAt > refreshMinutes * 60_000L;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.garageservice.service;
 
-import com.garageservice.model.DeviceToken;
 import com.garageservice.model.User;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.messaging.AndroidConfig;
@@ -9,6 +8,8 @@ import com.google.firebase.messaging.Aps;
 import com.google.firebase.messaging.Message;
 import com.google.firebase.messaging.Notification;
 import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.MessagingErrorCode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -27,12 +28,12 @@ public class FcmSenderService {
 
     public int sendToUser(User user, String title, String body, Map<String,String> data){
         if(!isInitialized()) return 0;
-        List<DeviceToken> tokens = deviceTokenService.tokensFor(user);
+        List<String> tokens = deviceTokenService.tokensFor(user.getId());
         int success = 0;
-        for (DeviceToken t : tokens) {
+        for (String t : tokens) {
             try {
                 Message msg = Message.builder()
-                        .setToken(t.getToken())
+                        .setToken(t)
                         .setNotification(Notification.builder().setTitle(title).setBody(body).build())
                         .putAllData(data)
                         .setAndroidConfig(AndroidConfig.builder().setPriority(AndroidConfig.Priority.HIGH).build())
@@ -40,8 +41,15 @@ public class FcmSenderService {
                         .build();
                 FirebaseMessaging.getInstance().send(msg);
                 success++;
+            } catch (FirebaseMessagingException e){
+                // The app was uninstalled or the token rotated: FCM will never accept it again
+                if (e.getMessagingErrorCode() == MessagingErrorCode.UNREGISTERED) {
+                    deviceTokenService.removeByToken(t);
+                } else {
+                    System.err.println("[FcmSender] Failed to send to token: " + t + ": " + e.getMessage());
+                }
             } catch (Exception e){
-                System.err.println("[FcmSender] Failed to send to token: " + t.getToken() + ": " + e.getMessage());
+                System.err.println("[FcmSender] Failed to send to token: " + t + ": " + e.getMessage());
             }
         }
         return success;
@@ -0,0 +1,108 @@
+package com.garageservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.garageservice.dto.GarageSummary;
+import com.garageservice.repository.GarageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Public garage directory (GET /api/garages), keyset paginated by id over GarageSummary rows.
+ * The first page at the default size is what nearly every caller asks for, so it is kept as a
+ * ready-made JSON body, plain and gzip-compressed, with its ETag. Garage writes call
+ * {@link #invalidate()} and the next request rebuilds it; app.garages.snapshotTtlMs bounds how
+ * long a node can serve a copy that predates a write made on another node.
+ */
+@Service
+public class GarageDirectoryService {
+    private static final Logger logger = LoggerFactory.getLogger(GarageDirectoryService.class);
+
+    @Autowired
+    private GarageRepository garageRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.garages.pageSize:50}")
+    private int defaultPageSize;
+
+    @Value("${app.garages.maxPageSize:200}")
+    private int maxPageSize;
+
+    @Value("${app.garages.snapshotTtlMs:60000}")
+    private long snapshotTtlMs;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public int defaultPageSize() {
+        return defaultPageSize;
+    }
+
+    public int pageSize(Integer requested) {
+        return requested == null || requested <= 0 ? defaultPageSize : Math.min(requested, maxPageSize);
+    }
+
+    /** Garages with id greater than afterId (null for the start); nextAfter is null on the last page. */
+    public Page page(Long afterId, int size) {
+        // One extra row tells us whether there is a next page without a COUNT
+        List<GarageSummary> rows = garageRepository.findSummariesAfter(afterId == null ? 0L : afterId, PageRequest.of(0, size + 1));
+        if (rows.size() <= size) return new Page(rows, null);
+        List<GarageSummary> items = rows.subList(0, size);
+        return new Page(items, items.get(size - 1).getId());
+    }
+
+    /** The first page at the default size, serialized and compressed. */
+    public Snapshot firstPage() {
+        Snapshot current = snapshot;
+        if (current != null && current.builtAt + snapshotTtlMs > System.currentTimeMillis()) return current;
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && current.builtAt + snapshotTtlMs > System.currentTimeMillis()) return current;
+            long seen = version.get();
+            current = build(page(null, defaultPageSize));
+            // A write during the build may not be in it; serve it once but don't keep it
+            if (version.get() == seen) snapshot = current;
+            return current;
+        }
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot build(Page page) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(page.items());
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(json);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(json);
+            String etag = "W/\"" + Long.toHexString(crc.getValue()) + "-" + json.length + "\"";
+            logger.debug("[GarageDirectoryService] Built directory snapshot: {} garages, {} bytes ({} gzipped)",
+                    page.items().size(), json.length, out.size());
+            return new Snapshot(json, out.toByteArray(), etag, page.nextAfter(), System.currentTimeMillis());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public record Page(List<GarageSummary> items, Long nextAfter) {}
+
+    public record Snapshot(byte[] json, byte[] gzip, String etag, Long nextAfter, long builtAt) {}
+}
@@ -0,0 +1,452 @@
+package com.garageservice.service;
+
+import com.garageservice.model.Garage;
+import com.garageservice.model.GarageService;
+import com.garageservice.repository.GarageRepository;
+import com.garageservice.repository.GarageServiceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted index over garage names/descriptions and their services' names/descriptions.
+ * Text is lower-cased, stripped of accents, split on non-alphanumerics and plural-folded
+ * ("brakes" and "brake" index the same). A query term matches an indexed term exactly, as a
+ * prefix ("bra" finds "brake"), or, when neither hits, within edit distance 1 (2 for terms of 8+
+ * characters; a swap of adjacent letters counts as one edit) among terms sharing its first or
+ * second letter. Every query term must match the garage or one of its services; the score sums,
+ * per term, the best field weight times the kind of match.
+ *
+ * A search can also name a service on its own ("oil change"): then only garages with a service
+ * whose own name/description matches, priced within the bounds, are returned, each listing those
+ * services, so a client needs no follow-up call per garage.
+ *
+ * GarageController and ServiceController keep it current on each write; it is loaded at startup
+ * and rebuilt every app.search.rebuildMs so writes made on other nodes show up too. A rebuild reads
+ * and indexes into a new {@link Index} without holding the lock, then swaps it in; writes made
+ * meanwhile are applied to the live index and recorded, and replayed onto the new one before the
+ * swap so none is lost.
+ */
+@Service
+public class GarageSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(GarageSearchIndex.class);
+
+    private static final float GARAGE_NAME = 3f;
+    private static final float GARAGE_DESCRIPTION = 1f;
+    private static final float SERVICE_NAME = 2f;
+    private static final float SERVICE_DESCRIPTION = 1f;
+
+    private static final float EXACT = 1f;
+    private static final float PREFIX = 0.7f;
+    private static final float FUZZY = 0.5f;
+    private static final int MAX_EXPANSIONS = 50;
+
+    @Autowired
+    private GarageRepository garageRepository;
+
+    @Autowired
+    private GarageServiceRepository garageServiceRepository;
+
+    @Value("${app.search.maxResults:50}")
+    private int maxResults;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock; replaced as a whole by rebuild()
+    private Index index = new Index();
+    // Writes made while a rebuild is reading, to replay onto its result; null when none is running
+    private List<Consumer<Index>> pendingWrites;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.search.rebuildMs:300000}", fixedDelayString = "${app.search.rebuildMs:300000}")
+    public synchronized void rebuild() {
+        recordWrites(new ArrayList<>());
+        try {
+            List<Garage> allGarages = garageRepository.findAll();
+            List<Object[]> allServices = garageServiceRepository.findIndexRows();
+            Index fresh = new Index();
+            for (Garage g : allGarages) fresh.putGarage(g.getId(), garageDoc(g));
+            for (Object[] row : allServices) {
+                fresh.putService(new ServiceDoc((Long) row[0], (Long) row[1], (String) row[2], (String) row[3], (BigDecimal) row[4],
+                        (Integer) row[5], terms(SERVICE_NAME, (String) row[2], SERVICE_DESCRIPTION, (String) row[3])));
+            }
+            lock.writeLock().lock();
+            try {
+                // The rows may predate these writes; replaying is harmless when they don't
+                for (Consumer<Index> write : pendingWrites) write.accept(fresh);
+                index = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.debug("[GarageSearchIndex] Indexed {} garages and {} services", allGarages.size(), allServices.size());
+        } catch (Exception e) {
+            logger.warn("[GarageSearchIndex] Rebuild failed: {}", e.getMessage());
+        } finally {
+            recordWrites(null);
+        }
+    }
+
+    public void upsertGarage(Garage garage) {
+        if (garage == null || garage.getId() == null) return;
+        Long garageId = garage.getId();
+        GarageDoc doc = garageDoc(garage);
+        write(ix -> ix.putGarage(garageId, doc));
+    }
+
+    public void removeGarage(Long garageId) {
+        write(ix -> ix.removeGarage(garageId));
+    }
+
+    public void upsertService(GarageService service, Long garageId) {
+        if (service == null || service.getId() == null || garageId == null) return;
+        ServiceDoc doc = new ServiceDoc(service.getId(), garageId, service.getName(), service.getDescription(), service.getPrice(),
+                service.getEstimatedDurationMinutes(), terms(SERVICE_NAME, service.getName(), SERVICE_DESCRIPTION, service.getDescription()));
+        write(ix -> ix.putService(doc));
+    }
+
+    public void removeService(Long serviceId) {
+        write(ix -> ix.removeService(serviceId));
+    }
+
+    private void write(Consumer<Index> write) {
+        lock.writeLock().lock();
+        try {
+            write.accept(index);
+            if (pendingWrites != null) pendingWrites.add(write);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void recordWrites(List<Consumer<Index>> pending) {
+        lock.writeLock().lock();
+        try {
+            pendingWrites = pending;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked garages for the query. Text (all garages when blank) matches garages or their services;
+     * service terms must match a single service, which must also fall within the price bounds. With
+     * only price bounds, garages need a service in range. Optionally within radiusKm of
+     * (latitude, longitude), and ordered by distance instead of score.
+     */
+    public List<Hit> search(SearchQuery query) {
+        List<String> textTerms = new ArrayList<>(new LinkedHashSet<>(tokenize(query.text())));
+        List<String> serviceTerms = new ArrayList<>(new LinkedHashSet<>(tokenize(query.service())));
+        boolean priced = query.minPrice() != null || query.maxPrice() != null;
+        boolean geo = query.latitude() != null && query.longitude() != null;
+        int size = query.limit() == null || query.limit() <= 0 ? maxResults : Math.min(query.limit(), maxResults);
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Float> scores = textTerms.isEmpty() ? allGarages() : matchAll(textTerms, false);
+            Map<Long, List<ServiceHit>> offered = serviceTerms.isEmpty() && !priced
+                    ? null : matchServices(serviceTerms, query.minPrice(), query.maxPrice());
+            List<Hit> hits = new ArrayList<>();
+            for (Map.Entry<Long, Float> e : scores.entrySet()) {
+                GarageDoc g = index.garages.get(e.getKey());
+                if (g == null) continue;
+                Double distance = geo ? EtaService.haversineKm(query.latitude(), query.longitude(), g.latitude, g.longitude) : null;
+                if (geo && query.radiusKm() != null && distance > query.radiusKm()) continue;
+                List<ServiceHit> matching = offered == null ? List.of() : offered.get(g.id);
+                if (matching == null) continue;
+                double score = e.getValue() + (matching.isEmpty() ? 0 : matching.get(0).score());
+                hits.add(new Hit(g.id, g.name, g.address, g.latitude, g.longitude, score, distance, matching));
+            }
+            Comparator<Hit> byScore = Comparator.comparingDouble(Hit::score).reversed();
+            Comparator<Hit> byDistance = Comparator.comparing(Hit::distanceKm, Comparator.nullsLast(Comparator.naturalOrder()));
+            hits.sort(query.byDistance() ? byDistance.thenComparing(byScore) : byScore.thenComparing(byDistance));
+            return hits.size() > size ? new ArrayList<>(hits.subList(0, size)) : hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Services matching all terms (any service when there are none) within the price bounds, by garage, best first. */
+    private Map<Long, List<ServiceHit>> matchServices(List<String> terms, BigDecimal minPrice, BigDecimal maxPrice) {
+        Map<Long, Float> matched;
+        if (terms.isEmpty()) {
+            matched = new HashMap<>();
+            for (Long id : index.services.keySet()) matched.put(id, 0f);
+        } else {
+            matched = matchAll(terms, true);
+        }
+        Map<Long, List<ServiceHit>> byGarage = new HashMap<>();
+        for (Map.Entry<Long, Float> e : matched.entrySet()) {
+            ServiceDoc s = index.services.get(e.getKey());
+            if (s == null || !inRange(s.price, minPrice, maxPrice)) continue;
+            byGarage.computeIfAbsent(s.garageId, k -> new ArrayList<>())
+                    .add(new ServiceHit(s.id, s.name, s.price, s.estimatedDurationMinutes, e.getValue()));
+        }
+        Comparator<ServiceHit> order = Comparator.comparingDouble(ServiceHit::score).reversed()
+                .thenComparing(ServiceHit::price, Comparator.nullsLast(Comparator.naturalOrder()));
+        byGarage.values().forEach(list -> list.sort(order));
+        return byGarage;
+    }
+
+    // --- scoring ---
+
+    /**
+     * Ids whose documents match every term, with summed scores: garage ids (a term may match the
+     * garage or any of its services), or with servicesOnly, service ids matched by the service alone.
+     */
+    private Map<Long, Float> matchAll(List<String> queryTerms, boolean servicesOnly) {
+        Map<Long, Float> total = null;
+        for (String qt : queryTerms) {
+            Map<Long, Float> best = new HashMap<>();
+            for (Map.Entry<String, Float> x : expand(qt, servicesOnly).entrySet()) {
+                float factor = x.getValue();
+                Map<Long, Float> s = index.servicePostings.get(x.getKey());
+                if (servicesOnly) {
+                    if (s != null) s.forEach((serviceId, w) -> best.merge(serviceId, w * factor, Math::max));
+                    continue;
+                }
+                Map<Long, Float> g = index.garagePostings.get(x.getKey());
+                if (g != null) g.forEach((id, w) -> best.merge(id, w * factor, Math::max));
+                if (s != null) {
+                    s.forEach((serviceId, w) -> {
+                        ServiceDoc doc = index.services.get(serviceId);
+                        if (doc != null) best.merge(doc.garageId, w * factor, Math::max);
+                    });
+                }
+            }
+            // Every query term has to match somewhere
+            if (total == null) {
+                total = best;
+            } else {
+                Map<Long, Float> next = new HashMap<>();
+                for (Map.Entry<Long, Float> e : total.entrySet()) {
+                    Float s = best.get(e.getKey());
+                    if (s != null) next.put(e.getKey(), e.getValue() + s);
+                }
+                total = next;
+            }
+            if (total.isEmpty()) break;
+        }
+        return total == null ? Map.of() : total;
+    }
+
+    /** Indexed terms the query term stands for, with how well each matches. */
+    private Map<String, Float> expand(String qt, boolean servicesOnly) {
+        Map<String, Float> out = new HashMap<>();
+        if (!servicesOnly) collectPrefix(index.garagePostings, qt, out);
+        collectPrefix(index.servicePostings, qt, out);
+        if (out.isEmpty() && qt.length() >= 4) {
+            int maxDistance = qt.length() >= 8 ? 2 : 1;
+            if (!servicesOnly) collectFuzzy(index.garageTermsByLength, qt, maxDistance, out);
+            collectFuzzy(index.serviceTermsByLength, qt, maxDistance, out);
+        }
+        return out;
+    }
+
+    private static void collectPrefix(TreeMap<String, Map<Long, Float>> postings, String qt, Map<String, Float> out) {
+        if (postings.containsKey(qt)) out.put(qt, EXACT);
+        int n = 0;
+        for (String term : postings.subMap(qt, false, qt + Character.MAX_VALUE, false).keySet()) {
+            if (++n > MAX_EXPANSIONS) break;
+            out.putIfAbsent(term, PREFIX);
+        }
+    }
+
+    /**
+     * Only compares terms of a length within maxDistance (nearest lengths first) that start with
+     * the query's first or second letter, which still catches a swap of the first two; a typo in
+     * the very first letter is not corrected. Stops after MAX_EXPANSIONS matches.
+     */
+    private static void collectFuzzy(Map<Integer, TreeSet<String>> termsByLength, String qt, int maxDistance, Map<String, Float> out) {
+        int n = 0;
+        for (int d = 0; d <= maxDistance; d++) {
+            for (int length : d == 0 ? new int[]{qt.length()} : new int[]{qt.length() - d, qt.length() + d}) {
+                TreeSet<String> bucket = termsByLength.get(length);
+                if (bucket == null) continue;
+                for (int i = 0; i < 2; i++) {
+                    if (i == 1 && qt.charAt(1) == qt.charAt(0)) break;
+                    String first = String.valueOf(qt.charAt(i));
+                    for (String term : bucket.subSet(first, true, first + Character.MAX_VALUE, false)) {
+                        if (editDistance(qt, term, maxDistance) > maxDistance) continue;
+                        out.putIfAbsent(term, FUZZY);
+                        if (++n >= MAX_EXPANSIONS) return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Edit distance counting an adjacent transposition ("brkae") as one edit; gives up, returning
+     * max + 1, as soon as the result must exceed max.
+     */
+    static int editDistance(String a, String b, int max) {
+        int[] prev2 = new int[b.length() + 1];
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    cur[j] = Math.min(cur[j], prev2[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, cur[j]);
+            }
+            if (rowMin > max) return max + 1;
+            int[] t = prev2; prev2 = prev; prev = cur; cur = t;
+        }
+        return prev[b.length()];
+    }
+
+    private Map<Long, Float> allGarages() {
+        Map<Long, Float> all = new HashMap<>();
+        for (Long id : index.garages.keySet()) all.put(id, 0f);
+        return all;
+    }
+
+    static boolean inRange(BigDecimal price, BigDecimal min, BigDecimal max) {
+        if (price == null) return min == null && max == null;
+        return (min == null || price.compareTo(min) >= 0) && (max == null || price.compareTo(max) <= 0);
+    }
+
+    // --- maintenance ---
+
+    // Null for garages that can't be placed on the map; those are left out of the index
+    private static GarageDoc garageDoc(Garage g) {
+        if (g.getId() == null || g.getLatitude() == null || g.getLongitude() == null) return null;
+        return new GarageDoc(g.getId(), g.getName(), g.getAddress(), g.getLatitude(), g.getLongitude(),
+                terms(GARAGE_NAME, g.getName(), GARAGE_DESCRIPTION, g.getDescription()));
+    }
+
+    /** Postings and documents; the live one is only touched under the lock, a rebuild's new one only by the rebuild. */
+    private static final class Index {
+        // term -> garage id / service id -> best field weight
+        final TreeMap<String, Map<Long, Float>> garagePostings = new TreeMap<>();
+        final TreeMap<String, Map<Long, Float>> servicePostings = new TreeMap<>();
+        // The same terms by length, to narrow fuzzy matching
+        final Map<Integer, TreeSet<String>> garageTermsByLength = new HashMap<>();
+        final Map<Integer, TreeSet<String>> serviceTermsByLength = new HashMap<>();
+        final Map<Long, GarageDoc> garages = new HashMap<>();
+        final Map<Long, ServiceDoc> services = new HashMap<>();
+        final Map<Long, Set<Long>> servicesByGarage = new HashMap<>();
+
+        void putGarage(Long garageId, GarageDoc doc) {
+            GarageDoc old = garages.remove(garageId);
+            if (old != null) unindex(garagePostings, garageTermsByLength, garageId, old.terms.keySet());
+            if (doc == null) return;
+            garages.put(doc.id, doc);
+            index(garagePostings, garageTermsByLength, doc.id, doc.terms);
+        }
+
+        void removeGarage(Long garageId) {
+            GarageDoc doc = garages.remove(garageId);
+            if (doc != null) unindex(garagePostings, garageTermsByLength, garageId, doc.terms.keySet());
+            Set<Long> owned = servicesByGarage.remove(garageId);
+            if (owned != null) {
+                for (Long serviceId : owned) {
+                    ServiceDoc s = services.remove(serviceId);
+                    if (s != null) unindex(servicePostings, serviceTermsByLength, serviceId, s.terms.keySet());
+                }
+            }
+        }
+
+        void putService(ServiceDoc doc) {
+            removeService(doc.id);
+            services.put(doc.id, doc);
+            servicesByGarage.computeIfAbsent(doc.garageId, k -> new HashSet<>()).add(doc.id);
+            index(servicePostings, serviceTermsByLength, doc.id, doc.terms);
+        }
+
+        void removeService(Long serviceId) {
+            ServiceDoc old = services.remove(serviceId);
+            if (old == null) return;
+            unindex(servicePostings, serviceTermsByLength, serviceId, old.terms.keySet());
+            Set<Long> owned = servicesByGarage.get(old.garageId);
+            if (owned != null) {
+                owned.remove(serviceId);
+                if (owned.isEmpty()) servicesByGarage.remove(old.garageId);
+            }
+        }
+    }
+
+    private static void index(TreeMap<String, Map<Long, Float>> postings, Map<Integer, TreeSet<String>> termsByLength,
+                              Long id, Map<String, Float> terms) {
+        terms.forEach((term, weight) -> postings.computeIfAbsent(term, k -> {
+            termsByLength.computeIfAbsent(k.length(), n -> new TreeSet<>()).add(k);
+            return new HashMap<>();
+        }).put(id, weight));
+    }
+
+    private static void unindex(TreeMap<String, Map<Long, Float>> postings, Map<Integer, TreeSet<String>> termsByLength,
+                                Long id, Collection<String> terms) {
+        if (terms == null) return;
+        for (String term : terms) {
+            Map<Long, Float> ids = postings.get(term);
+            if (ids == null) continue;
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(term);
+                TreeSet<String> bucket = termsByLength.get(term.length());
+                if (bucket != null && bucket.remove(term) && bucket.isEmpty()) termsByLength.remove(term.length());
+            }
+        }
+    }
+
+    // --- text ---
+
+    private static Map<String, Float> terms(float nameWeight, String name, float descriptionWeight, String description) {
+        Map<String, Float> terms = new HashMap<>();
+        for (String t : tokenize(description)) terms.merge(t, descriptionWeight, Math::max);
+        for (String t : tokenize(name)) terms.merge(t, nameWeight, Math::max);
+        return terms;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        List<String> out = new ArrayList<>();
+        for (String t : folded.split("[^\\p{L}\\p{N}]+")) {
+            if (t.length() < 2) continue;
+            out.add(fold(t));
+        }
+        return out;
+    }
+
+    // Minimal plural folding: "pads" -> "pad", "brakes" -> "brake", but keep "glass", "bus"
+    private static String fold(String t) {
+        if (t.length() > 3 && t.endsWith("s") && !t.endsWith("ss") && !t.endsWith("us")) {
+            return t.substring(0, t.length() - 1);
+        }
+        return t;
+    }
+
+    public record SearchQuery(String text, String service, Double latitude, Double longitude, Double radiusKm,
+                              BigDecimal minPrice, BigDecimal maxPrice, boolean byDistance, Integer limit) {}
+
+    public record Hit(Long garageId, String name, String address, double latitude, double longitude,
+                      double score, Double distanceKm, List<ServiceHit> services) {}
+
+    public record ServiceHit(Long id, String name, BigDecimal price, Integer estimatedDurationMinutes, double score) {}
+
+    private record GarageDoc(Long id, String name, String address, double latitude, double longitude,
+                             Map<String, Float> terms) {}
+
+    private record ServiceDoc(Long id, Long garageId, String name, String description, BigDecimal price,
+                              Integer estimatedDurationMinutes, Map<String, Float> terms) {}
+}
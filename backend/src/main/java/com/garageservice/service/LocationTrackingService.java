@@ -0,0 +1,234 @@
+package com.garageservice.service;
+
+import com.garageservice.model.ServiceRequest;
+import com.garageservice.repository.ServiceRequestRepository;
+import com.garageservice.util.ExpiringCache;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live garage positions for ACCEPTED / IN_PROGRESS requests. The garage's device publishes GPS
+ * fixes; each one is throttled per request, kept as the last known position and forwarded only to
+ * the request's customer on /user/queue/tracking together with a refreshed ETA.
+ *
+ * ETAs are recomputed at most every app.tracking.etaRefreshMs or after the vehicle moved
+ * app.tracking.etaRefreshMeters, from an origin rounded to app.tracking.originDecimals so that
+ * nearby fixes share routing cache entries. The routing call runs on a background thread, never on
+ * the thread handling the fix: the fix goes out with the previous ETA (or a straight-line one for
+ * the first fix) and the customer gets a second message once the road ETA is known.
+ *
+ * Positions are dropped when the request leaves ACCEPTED / IN_PROGRESS or is detached from a
+ * deleted account, and swept after app.tracking.staleMs without a fix (e.g. when the request was
+ * completed on another node).
+ */
+@Service
+public class LocationTrackingService {
+    private static final Logger logger = LoggerFactory.getLogger(LocationTrackingService.class);
+    public static final String USER_QUEUE = "/queue/tracking";
+
+    @Autowired
+    private ServiceRequestRepository serviceRequestRepository;
+
+    @Autowired
+    private EtaService etaService;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    // Fixes closer together than this are dropped
+    @Value("${app.tracking.minIntervalMs:2000}")
+    private long minIntervalMs;
+
+    // ...and so are fixes that moved less than this, unless idleIntervalMs has passed
+    @Value("${app.tracking.minMoveMeters:10}")
+    private double minMoveMeters;
+
+    @Value("${app.tracking.idleIntervalMs:15000}")
+    private long idleIntervalMs;
+
+    @Value("${app.tracking.etaRefreshMs:30000}")
+    private long etaRefreshMs;
+
+    @Value("${app.tracking.etaRefreshMeters:250}")
+    private double etaRefreshMeters;
+
+    // 3 decimals is roughly 100 m
+    @Value("${app.tracking.originDecimals:3}")
+    private int originDecimals;
+
+    // How long who-may-publish/receive for a request is trusted before re-reading it
+    @Value("${app.tracking.targetTtlMs:60000}")
+    private long targetTtlMs;
+
+    @Value("${app.tracking.staleMs:1800000}")
+    private long staleMs;
+
+    private final ExpiringCache<Long, Target> targets = new ExpiringCache<>(10_000);
+    private final Map<Long, Position> positions = new ConcurrentHashMap<>();
+    // Road ETA lookups; when the queue is full the refresh is retried at the next due fix
+    private final ThreadPoolExecutor etaExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(500), r -> {
+                Thread t = new Thread(r, "tracking-eta");
+                t.setDaemon(true);
+                return t;
+            });
+
+    /**
+     * Handles a GPS fix sent by a garage owner. Returns false if the sender may not publish for this
+     * request, the request isn't being served, or the fix was throttled.
+     */
+    public boolean update(Long requestId, Long senderId, double latitude, double longitude, Double heading) {
+        Target target = target(requestId);
+        if (!target.active || !target.garageOwnerId.equals(senderId)) {
+            logger.debug("[LocationTrackingService] Ignoring position for request {} from user {}", requestId, senderId);
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        boolean[] accepted = {false};
+        Position position = positions.compute(requestId, (id, last) -> {
+            if (last != null) {
+                long elapsed = now - last.recordedAt;
+                double moved = EtaService.haversineKm(last.latitude, last.longitude, latitude, longitude) * 1000;
+                if (elapsed < minIntervalMs || (moved < minMoveMeters && elapsed < idleIntervalMs)) return last;
+            }
+            accepted[0] = true;
+            return last == null
+                    ? new Position(latitude, longitude, heading, now, null, latitude, longitude, 0)
+                    : new Position(latitude, longitude, heading, now, last.etaMinutes, last.etaLatitude, last.etaLongitude, last.etaAt);
+        });
+        if (!accepted[0]) return false;
+
+        if (target.hasDestination() && etaDue(position, now)) {
+            // Keep the last ETA until the road one is in; the first fix gets a straight-line estimate
+            Integer interim = position.etaMinutes != null ? position.etaMinutes : (int) Math.ceil(
+                    etaService.straightLineMinutes(latitude, longitude, target.destLatitude, target.destLongitude));
+            position = positions.computeIfPresent(requestId, (id, p) ->
+                    new Position(p.latitude, p.longitude, p.heading, p.recordedAt, interim, latitude, longitude, now));
+            if (position == null) return false; // tracking stopped meanwhile
+            refreshEta(requestId, target, latitude, longitude, now);
+        }
+        messagingTemplate.convertAndSendToUser(String.valueOf(target.customerId), USER_QUEUE, toPayload(requestId, position));
+        return true;
+    }
+
+    private void refreshEta(Long requestId, Target target, double latitude, double longitude, long etaAt) {
+        try {
+            etaExecutor.execute(() -> {
+                Integer eta = (int) Math.ceil(etaService.travelMinutes(
+                        quantize(latitude), quantize(longitude), target.destLatitude, target.destLongitude));
+                boolean[] changed = {false};
+                // Only the refresh that is still current may write; tracking may also have stopped meanwhile
+                Position position = positions.computeIfPresent(requestId, (id, p) -> {
+                    if (p.etaAt != etaAt || eta.equals(p.etaMinutes)) return p;
+                    changed[0] = true;
+                    return new Position(p.latitude, p.longitude, p.heading, p.recordedAt, eta, p.etaLatitude, p.etaLongitude, p.etaAt);
+                });
+                if (changed[0]) {
+                    messagingTemplate.convertAndSendToUser(String.valueOf(target.customerId), USER_QUEUE, toPayload(requestId, position));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("[LocationTrackingService] ETA refresh for request {} skipped: queue full", requestId);
+        }
+    }
+
+    /** Last accepted position of the request's vehicle, or null. */
+    public Map<String, Object> lastPosition(Long requestId) {
+        Position p = positions.get(requestId);
+        return p == null ? null : toPayload(requestId, p);
+    }
+
+    /** Stops tracking once a request leaves ACCEPTED / IN_PROGRESS. */
+    public void onStatusChange(ServiceRequest request) {
+        targets.remove(request.getId());
+        if (!isTrackable(request.getStatus())) positions.remove(request.getId());
+    }
+
+    /** Stops tracking requests that no longer reference one of their parties (account deletion). */
+    public void forget(Collection<Long> requestIds) {
+        for (Long id : requestIds) {
+            targets.remove(id);
+            positions.remove(id);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.tracking.staleMs:1800000}", fixedDelayString = "${app.tracking.staleMs:1800000}")
+    public void removeStalePositions() {
+        long cutoff = System.currentTimeMillis() - staleMs;
+        positions.values().removeIf(p -> p.recordedAt < cutoff);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        etaExecutor.shutdownNow();
+    }
+
+    private Target target(Long requestId) {
+        Target target = targets.get(requestId);
+        if (target == null) {
+            List<Object[]> rows = serviceRequestRepository.findTrackingTarget(requestId);
+            if (rows.isEmpty()) {
+                target = Target.INACTIVE;
+            } else {
+                Object[] row = rows.get(0);
+                target = new Target((Long) row[0], (Long) row[1], (Double) row[2], (Double) row[3],
+                        isTrackable((ServiceRequest.RequestStatus) row[4]));
+            }
+            targets.put(requestId, target, System.currentTimeMillis() + targetTtlMs);
+        }
+        if (!target.active) positions.remove(requestId);
+        return target;
+    }
+
+    private boolean etaDue(Position p, long now) {
+        if (p.etaMinutes == null || now - p.etaAt >= etaRefreshMs) return true;
+        return EtaService.haversineKm(p.etaLatitude, p.etaLongitude, p.latitude, p.longitude) * 1000 >= etaRefreshMeters;
+    }
+
+    private double quantize(double coordinate) {
+        double scale = Math.pow(10, originDecimals);
+        return Math.round(coordinate * scale) / scale;
+    }
+
+    private static boolean isTrackable(ServiceRequest.RequestStatus status) {
+        return status == ServiceRequest.RequestStatus.ACCEPTED || status == ServiceRequest.RequestStatus.IN_PROGRESS;
+    }
+
+    private static Map<String, Object> toPayload(Long requestId, Position p) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("requestId", requestId);
+        payload.put("latitude", p.latitude);
+        payload.put("longitude", p.longitude);
+        if (p.heading != null) payload.put("heading", p.heading);
+        if (p.etaMinutes != null) payload.put("etaMinutes", p.etaMinutes);
+        payload.put("recordedAt", p.recordedAt);
+        return payload;
+    }
+
+    private record Target(Long garageOwnerId, Long customerId, Double destLatitude, Double destLongitude, boolean active) {
+        static final Target INACTIVE = new Target(null, null, null, null, false);
+
+        boolean hasDestination() {
+            return destLatitude != null && destLongitude != null;
+        }
+    }
+
+    private record Position(double latitude, double longitude, Double heading, long recordedAt,
+                            Integer etaMinutes, double etaLatitude, double etaLongitude, long etaAt) {}
+}
@@ -0,0 +1,131 @@
+package com.garageservice.service;
+
+import com.garageservice.model.Notification;
+import com.garageservice.model.User;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single place that pushes notification events to connected clients, via the user destination
+ * /user/queue/notifications. Whether a user is online comes from the broker's SimpUserRegistry
+ * (a map lookup by user id; with the relay broker it is shared across nodes), so events for
+ * offline users are not sent at all and new notifications go out as FCM pushes instead.
+ *
+ * Events for the same user within app.websocket.coalesceMs are sent as one frame: a lone event
+ * goes out as before with an "unread" count added, several become
+ * {"type":"BATCH","events":[...],"unread":n}.
+ */
+@Service
+public class NotificationPublisher {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationPublisher.class);
+    public static final String USER_QUEUE = "/queue/notifications";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private SimpUserRegistry userRegistry;
+
+    @Autowired
+    private FcmSenderService fcmSenderService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    // Also publish to /topic/notifications.{userId} for clients that haven't moved to the user queue
+    @Value("${app.websocket.legacyTopic:true}")
+    private boolean legacyTopic;
+
+    // 0 sends every event immediately
+    @Value("${app.websocket.coalesceMs:50}")
+    private long coalesceMs;
+
+    private final Map<Long, List<Map<String, Object>>> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "notification-coalescer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public boolean isOnline(Long userId) {
+        return userId != null && userRegistry.getUser(String.valueOf(userId)) != null;
+    }
+
+    /** Queues the event for the user's open sockets; returns false (and sends nothing) if they have none. */
+    public boolean publish(Long userId, Map<String, Object> payload) {
+        if (!isOnline(userId)) return false;
+        if (coalesceMs <= 0) {
+            send(userId, List.of(payload));
+            return true;
+        }
+        boolean[] first = {false};
+        pending.compute(userId, (id, events) -> {
+            if (events == null) {
+                events = new ArrayList<>();
+                first[0] = true;
+            }
+            events.add(payload);
+            return events;
+        });
+        // The first event of a window schedules the flush; later ones just join the batch
+        if (first[0]) flusher.schedule(() -> flush(userId), coalesceMs, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /** Announces a newly created notification over WebSocket, or as a push if the user isn't connected. */
+    public void publishCreated(User user, Notification notification) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", "CREATED");
+        payload.put("id", notification.getId());
+        if (publish(user.getId(), payload)) return;
+        try {
+            fcmSenderService.sendToUser(user, notification.getTitle(), notification.getMessage(),
+                    Map.of("type", "CREATED", "id", String.valueOf(notification.getId())));
+        } catch (Exception ignore) {}
+    }
+
+    private void flush(Long userId) {
+        List<Map<String, Object>> events = pending.remove(userId);
+        if (events == null || events.isEmpty()) return;
+        try {
+            send(userId, events);
+        } catch (Exception e) {
+            logger.warn("[NotificationPublisher] Failed to send {} events to user {}: {}", events.size(), userId, e.getMessage());
+        }
+    }
+
+    private void send(Long userId, List<Map<String, Object>> events) {
+        Map<String, Object> frame;
+        if (events.size() == 1) {
+            frame = new HashMap<>(events.get(0));
+        } else {
+            frame = new HashMap<>();
+            frame.put("type", "BATCH");
+            frame.put("events", events);
+        }
+        frame.put("unread", notificationService.unreadCount(userId));
+        messagingTemplate.convertAndSendToUser(String.valueOf(userId), USER_QUEUE, frame);
+        if (legacyTopic) messagingTemplate.convertAndSend("/topic/notifications." + userId, frame);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        for (Long userId : new ArrayList<>(pending.keySet())) flush(userId);
+    }
+}
@@ -0,0 +1,111 @@
+package com.garageservice.service;
+
+import com.garageservice.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes read notifications older than app.notifications.retention.maxAgeDays. Candidates are
+ * walked in id ranges of app.notifications.retention.batchSize, each deleted in its own short
+ * transaction, so no statement holds locks on a large part of the table. Unread notifications
+ * are never removed. With dryRun the job only counts what it would delete.
+ *
+ * Metrics: notifications.retention.deleted (counter), notifications.retention.candidates
+ * (rows matched by the last run), notifications.retention.last_run (epoch seconds) and
+ * notifications.retention.duration (timer).
+ */
+@Service
+public class NotificationRetentionService {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRetentionService.class);
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Value("${app.notifications.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.notifications.retention.maxAgeDays:90}")
+    private int maxAgeDays;
+
+    @Value("${app.notifications.retention.batchSize:1000}")
+    private int batchSize;
+
+    // Pause between batches so replication and other writers can keep up
+    @Value("${app.notifications.retention.pauseMs:50}")
+    private long pauseMs;
+
+    @Value("${app.notifications.retention.dryRun:false}")
+    private boolean dryRun;
+
+    private final Counter deleted;
+    private final Timer duration;
+    private final AtomicLong lastCandidates = new AtomicLong();
+    private final AtomicLong lastRunEpochSeconds = new AtomicLong();
+
+    public NotificationRetentionService(MeterRegistry registry) {
+        this.deleted = Counter.builder("notifications.retention.deleted").register(registry);
+        this.duration = Timer.builder("notifications.retention.duration").register(registry);
+        Gauge.builder("notifications.retention.candidates", lastCandidates, AtomicLong::get).register(registry);
+        Gauge.builder("notifications.retention.last_run", lastRunEpochSeconds, AtomicLong::get).register(registry);
+    }
+
+    @Scheduled(cron = "${app.notifications.retention.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (!enabled) return;
+        try {
+            run();
+        } catch (Exception e) {
+            logger.warn("[NotificationRetentionService] Retention run failed: {}", e.getMessage());
+        }
+    }
+
+    /** Runs one retention pass and returns the number of rows deleted (or that would be, in dry-run mode). */
+    public long run() {
+        return duration.record(() -> {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(maxAgeDays);
+            List<Object[]> range = notificationRepository.findExpiredIdRange(cutoff);
+            long total = 0;
+            if (!range.isEmpty() && range.get(0)[0] != null) {
+                long minId = ((Number) range.get(0)[0]).longValue();
+                long maxId = ((Number) range.get(0)[1]).longValue();
+                for (long from = minId; from <= maxId; from += batchSize) {
+                    long to = from + batchSize;
+                    if (dryRun) {
+                        total += notificationRepository.countExpiredInRange(from, to, cutoff);
+                    } else {
+                        int removed = notificationRepository.deleteExpiredInRange(from, to, cutoff);
+                        deleted.increment(removed);
+                        total += removed;
+                        pause();
+                    }
+                }
+            }
+            lastCandidates.set(total);
+            lastRunEpochSeconds.set(System.currentTimeMillis() / 1000);
+            logger.info("[NotificationRetentionService] {} {} read notifications older than {} days",
+                    dryRun ? "Would delete" : "Deleted", total, maxAgeDays);
+            return total;
+        });
+    }
+
+    private void pause() {
+        if (pauseMs <= 0) return;
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
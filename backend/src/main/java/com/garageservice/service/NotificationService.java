@@ -4,30 +4,110 @@ import com.garageservice.model.Notification;
 import com.garageservice.model.User;
 import com.garageservice.repository.NotificationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class NotificationService {
     @Autowired
     private NotificationRepository notificationRepository;
 
+    // Counters are re-read from the database after this long, which also corrects drift between nodes
+    @Value("${app.notifications.unreadReconcileMs:300000}")
+    private long unreadReconcileMs;
+
+    // Per-user unread counts, kept in step with create / markRead / markAllRead
+    private final Map<Long, UnreadCounter> unreadCounters = new ConcurrentHashMap<>();
+
     public Notification create(User user, String title, String message){
         Notification n = new Notification(user, title, message);
-        return notificationRepository.save(n);
+        Notification saved = notificationRepository.save(n);
+        UnreadCounter counter = unreadCounters.get(user.getId());
+        if (counter != null) counter.count.incrementAndGet();
+        return saved;
     }
 
     public List<Notification> forUser(Long userId){
         return notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
     }
 
+    /** Up to limit notifications older than (createdAt, id), or the newest ones if createdAt is null. */
+    public List<Notification> page(Long userId, LocalDateTime createdAt, Long id, int limit){
+        if (createdAt == null || id == null) return notificationRepository.findFeed(userId, PageRequest.of(0, limit));
+        return notificationRepository.findFeedBefore(userId, createdAt, id, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Notifications newer than the given one (delta sync after a reconnect), newest first and, with
+     * a cursor, only those older than it. Null if the anchor is gone (e.g. removed by retention) or
+     * isn't the user's.
+     */
+    public List<Notification> since(Long userId, Long sinceId, LocalDateTime createdAt, Long id, int limit){
+        Optional<Notification> since = notificationRepository.findById(sinceId)
+                .filter(n -> n.getUser().getId().equals(userId));
+        if (since.isEmpty()) return null;
+        if (createdAt == null || id == null) {
+            return notificationRepository.findFeedAfter(userId, since.get().getCreatedAt(), sinceId, PageRequest.of(0, limit));
+        }
+        return notificationRepository.findFeedBetween(userId, since.get().getCreatedAt(), sinceId, createdAt, id, PageRequest.of(0, limit));
+    }
+
+    /** Opaque version of the user's feed, cheap to compute without loading any rows. */
+    public String feedVersion(Long userId){
+        List<Object[]> rows = notificationRepository.findFeedVersion(userId);
+        Object[] row = rows.isEmpty() ? new Object[3] : rows.get(0);
+        return row[0] + "-" + row[1] + "-" + row[2];
+    }
+
     public Optional<Notification> findById(Long id){ return notificationRepository.findById(id); }
 
-    public long unreadCount(Long userId){ return notificationRepository.countByUserIdAndReadFlagFalse(userId); }
+    public long unreadCount(Long userId){
+        UnreadCounter counter = unreadCounters.get(userId);
+        if (counter == null || System.currentTimeMillis() - counter.loadedAt > unreadReconcileMs) {
+            counter = new UnreadCounter(notificationRepository.countByUserIdAndReadFlagFalse(userId));
+            unreadCounters.put(userId, counter);
+        }
+        return counter.count.get();
+    }
+
+    /** Marks the notification read, adjusting the unread counter only if it wasn't already. */
+    public Notification markRead(Notification n){
+        if (n.isReadFlag()) return n;
+        n.setReadFlag(true);
+        Notification saved = notificationRepository.save(n);
+        UnreadCounter counter = unreadCounters.get(n.getUser().getId());
+        if (counter != null) counter.count.updateAndGet(c -> Math.max(0, c - 1));
+        return saved;
+    }
+
+    /** Marks every unread notification of the user read; returns how many changed. */
+    public int markAllRead(Long userId){
+        int updated = notificationRepository.markAllRead(userId);
+        unreadCounters.put(userId, new UnreadCounter(0));
+        return updated;
+    }
+
+    /** Forgets the user's counter, e.g. after their notifications were deleted. */
+    public void evictUnreadCount(Long userId){ unreadCounters.remove(userId); }
 
     public Notification save(Notification n){ return notificationRepository.save(n); }
 
     public List<Notification> saveAll(List<Notification> list){ return notificationRepository.saveAll(list); }
+
+    private static final class UnreadCounter {
+        final AtomicLong count;
+        final long loadedAt = System.currentTimeMillis();
+
+        UnreadCounter(long count) {
+            this.count = new AtomicLong(count);
+        }
+    }
 }
@@ -0,0 +1,201 @@
+package com.garageservice.service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Helpers for route geometry. Coordinates are handled as a flat int array
+ * [lat0, lng0, lat1, lng1, ...] in fixed point at the polyline precision (1e6 for polyline6).
+ */
+public final class PolylineCodec {
+
+    private PolylineCodec() {}
+
+    /** Decodes a Google/OSRM encoded polyline into fixed-point coordinates. */
+    public static int[] decode(String encoded) {
+        int[] out = new int[16];
+        int n = 0;
+        int index = 0;
+        int lat = 0;
+        int lng = 0;
+        while (index < encoded.length()) {
+            int[] res = readValue(encoded, index);
+            lat += res[0];
+            index = res[1];
+            res = readValue(encoded, index);
+            lng += res[0];
+            index = res[1];
+            if (n + 2 > out.length) out = Arrays.copyOf(out, out.length * 2);
+            out[n++] = lat;
+            out[n++] = lng;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] readValue(String encoded, int index) {
+        int result = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = encoded.charAt(index++) - 63;
+            result |= (b & 0x1f) << shift;
+            shift += 5;
+        } while (b >= 0x20);
+        int value = (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+        return new int[]{value, index};
+    }
+
+    /** Encodes fixed-point coordinates back into the polyline text format. */
+    public static String encode(int[] coords) {
+        StringBuilder sb = new StringBuilder(coords.length * 3);
+        int prevLat = 0;
+        int prevLng = 0;
+        for (int i = 0; i + 1 < coords.length; i += 2) {
+            writeValue(sb, coords[i] - prevLat);
+            writeValue(sb, coords[i + 1] - prevLng);
+            prevLat = coords[i];
+            prevLng = coords[i + 1];
+        }
+        return sb.toString();
+    }
+
+    private static void writeValue(StringBuilder sb, int value) {
+        int v = value < 0 ? ~(value << 1) : (value << 1);
+        while (v >= 0x20) {
+            sb.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>>= 5;
+        }
+        sb.append((char) (v + 63));
+    }
+
+    /** Packs coordinates as zig-zag varint deltas (7 bits per byte instead of the 5 used by the text form). */
+    public static byte[] pack(int[] coords) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(coords.length * 2);
+        int prevLat = 0;
+        int prevLng = 0;
+        for (int i = 0; i + 1 < coords.length; i += 2) {
+            writeVarint(out, coords[i] - prevLat);
+            writeVarint(out, coords[i + 1] - prevLng);
+            prevLat = coords[i];
+            prevLng = coords[i + 1];
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        int v = (value << 1) ^ (value >> 31);
+        while ((v & ~0x7f) != 0) {
+            out.write((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    public static int[] unpack(byte[] packed) {
+        int[] out = new int[Math.max(4, packed.length)];
+        int n = 0;
+        int pos = 0;
+        int lat = 0;
+        int lng = 0;
+        while (pos < packed.length) {
+            int shift = 0;
+            int v = 0;
+            int b;
+            do {
+                b = packed[pos++];
+                v |= (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            int delta = (v >>> 1) ^ -(v & 1);
+            if (n + 1 > out.length) out = Arrays.copyOf(out, out.length * 2);
+            if ((n & 1) == 0) {
+                lat += delta;
+                out[n++] = lat;
+            } else {
+                lng += delta;
+                out[n++] = lng;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Douglas-Peucker simplification. Points closer than toleranceMeters to the simplified
+     * line are dropped; the first and last points are always kept.
+     */
+    public static int[] simplify(int[] coords, double toleranceMeters, int precision) {
+        int count = coords.length / 2;
+        if (count <= 2 || toleranceMeters <= 0) return coords;
+        double scale = Math.pow(10, precision);
+        // Local equirectangular projection to metres, good enough at route scale
+        double cosLat = Math.cos(Math.toRadians(coords[0] / scale));
+        double[] x = new double[count];
+        double[] y = new double[count];
+        for (int i = 0; i < count; i++) {
+            y[i] = coords[2 * i] / scale * 110_540.0;
+            x[i] = coords[2 * i + 1] / scale * 111_320.0 * cosLat;
+        }
+        boolean[] keep = new boolean[count];
+        keep[0] = true;
+        keep[count - 1] = true;
+        double tolSq = toleranceMeters * toleranceMeters;
+        int[] stack = new int[count * 2];
+        int sp = 0;
+        stack[sp++] = 0;
+        stack[sp++] = count - 1;
+        while (sp > 0) {
+            int last = stack[--sp];
+            int first = stack[--sp];
+            double maxSq = 0;
+            int index = -1;
+            for (int i = first + 1; i < last; i++) {
+                double d = segmentDistanceSq(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (d > maxSq) {
+                    maxSq = d;
+                    index = i;
+                }
+            }
+            if (index != -1 && maxSq > tolSq) {
+                keep[index] = true;
+                stack[sp++] = first;
+                stack[sp++] = index;
+                stack[sp++] = index;
+                stack[sp++] = last;
+            }
+        }
+        int kept = 0;
+        for (boolean k : keep) if (k) kept++;
+        int[] out = new int[kept * 2];
+        int j = 0;
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                out[j++] = coords[2 * i];
+                out[j++] = coords[2 * i + 1];
+            }
+        }
+        return out;
+    }
+
+    /** Tolerance of roughly one screen pixel at the given web-map zoom level. */
+    public static double toleranceForZoom(int zoom, double latitude) {
+        return 156_543.03392 * Math.cos(Math.toRadians(latitude)) / Math.pow(2, zoom);
+    }
+
+    private static double segmentDistanceSq(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        if (dx != 0 || dy != 0) {
+            double t = ((px - ax) * dx + (py - ay) * dy) / (dx * dx + dy * dy);
+            if (t > 1) {
+                ax = bx;
+                ay = by;
+            } else if (t > 0) {
+                ax += dx * t;
+                ay += dy * t;
+            }
+        }
+        dx = px - ax;
+        dy = py - ay;
+        return dx * dx + dy * dy;
+    }
+}
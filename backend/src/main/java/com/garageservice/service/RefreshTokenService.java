@@ -0,0 +1,202 @@
+package com.garageservice.service;
+
+import com.garageservice.model.RefreshToken;
+import com.garageservice.model.User;
+import com.garageservice.repository.RefreshTokenRepository;
+import com.garageservice.repository.UserRepository;
+import com.garageservice.security.JwtClaims;
+import com.garageservice.security.JwtUtils;
+import com.garageservice.security.UserPrincipal;
+import com.garageservice.util.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Issues and rotates refresh tokens. Every refresh token has a row in refresh_tokens; using one
+ * revokes it and issues its successor in the same family. Presenting a token that was already
+ * rotated or revoked is treated as theft and revokes the whole family.
+ *
+ * Revoked ids are also kept in memory until they expire, so replays are rejected without a
+ * database round trip. The conditional UPDATE in {@link #rotate} stays authoritative, which
+ * keeps this correct when another node revoked the token.
+ *
+ * Legacy refresh tokens (issued before the store, no jti) are stored on first use under a
+ * name-based UUID of the token, already revoked, and their successor starts a family with that id.
+ * A second use, or one after logout, is then rejected like any other consumed token.
+ */
+@Service
+public class RefreshTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    // Refresh tokens issued before rotation existed carry no jti; each is accepted once and moved onto the store
+    @Value("${app.auth.acceptLegacyRefreshTokens:true}")
+    private boolean acceptLegacyTokens;
+
+    private final ExpiringCache<String, Boolean> revokedIds;
+    // Legacy tokens are recorded in their own transaction so a key conflict doesn't doom the caller's
+    private final TransactionTemplate legacyInsert;
+
+    public RefreshTokenService(@Value("${app.auth.revokedTokenCacheMaxSize:100000}") int revokedCacheMaxSize,
+                               PlatformTransactionManager transactionManager) {
+        this.revokedIds = new ExpiringCache<>(revokedCacheMaxSize);
+        this.legacyInsert = new TransactionTemplate(transactionManager);
+        this.legacyInsert.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** New refresh token starting a fresh family (login). */
+    @Transactional
+    public String issue(Authentication authentication) {
+        return issue(authentication, UUID.randomUUID().toString(), null);
+    }
+
+    /**
+     * Consumes the presented refresh token and returns its successor, or null if the token
+     * must not be honoured (revoked, already rotated, expired in the store or unknown).
+     */
+    @Transactional
+    public String rotate(String token, JwtClaims claims, Authentication authentication) {
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        String tokenId = claims.getTokenId();
+        if (tokenId == null) {
+            if (!acceptLegacyTokens) return null;
+            String legacyId = legacyId(token);
+            if (!consumeLegacy(legacyId, principal.getId(), claims)) {
+                revokeFamily(legacyId, legacyId);
+                return null;
+            }
+            return issue(authentication, legacyId, legacyId);
+        }
+        if (revokedIds.get(tokenId) != null) {
+            revokeFamily(claims.getFamilyId(), tokenId);
+            return null;
+        }
+        int consumed = refreshTokenRepository.revokeIfActive(tokenId, principal.getId(), LocalDateTime.now());
+        if (consumed == 0) {
+            revokeFamily(claims.getFamilyId(), tokenId);
+            return null;
+        }
+        markRevoked(tokenId, claims.getExpiresAt());
+        String familyId = claims.getFamilyId() != null ? claims.getFamilyId() : tokenId;
+        return issue(authentication, familyId, tokenId);
+    }
+
+    /** Logout: revokes the token's whole family so tokens rotated from it stop working too. */
+    @Transactional
+    public void revoke(String token, JwtClaims claims) {
+        if (claims.getTokenId() == null) {
+            // Old tokens may lack the uid claim too
+            Long userId = claims.getUserId() != null ? claims.getUserId()
+                    : userRepository.findByEmail(claims.getSubject()).map(User::getId).orElse(null);
+            String legacyId = legacyId(token);
+            if (userId == null || !consumeLegacy(legacyId, userId, claims)) {
+                revokeFamily(legacyId, legacyId);
+            }
+            return;
+        }
+        revokeFamily(claims.getFamilyId(), claims.getTokenId());
+    }
+
+    /** Revokes every live refresh token of the user, e.g. after a password reset. */
+    @Transactional
+    public void revokeAllForUser(Long userId) {
+        List<Object[]> active = refreshTokenRepository.findActiveIdsByUser(userId);
+        refreshTokenRepository.revokeAllForUser(userId);
+        active.forEach(this::markRevoked);
+    }
+
+    /** Drops the user's rows before the user itself is deleted. */
+    @Transactional
+    public void deleteAllForUser(Long userId) {
+        List<Object[]> active = refreshTokenRepository.findActiveIdsByUser(userId);
+        refreshTokenRepository.deleteByUserId(userId);
+        active.forEach(this::markRevoked);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevoked() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int removed = refreshTokenRepository.deleteExpired(now);
+            List<Object[]> revoked = refreshTokenRepository.findRevokedIds(now);
+            revoked.forEach(this::markRevoked);
+            logger.info("[RefreshTokenService] Loaded {} revoked refresh tokens, removed {} expired", revoked.size(), removed);
+        } catch (Exception e) {
+            logger.warn("[RefreshTokenService] Could not load revoked refresh tokens: {}", e.getMessage());
+        }
+    }
+
+    private String issue(Authentication authentication, String familyId, String rotatedFrom) {
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        String tokenId = rotatedFrom == null ? familyId : UUID.randomUUID().toString();
+        Date expiresAt = new Date(System.currentTimeMillis() + jwtUtils.getRefreshExpirationMs());
+        refreshTokenRepository.save(new RefreshToken(tokenId, userRepository.getReferenceById(principal.getId()),
+                familyId, rotatedFrom, LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault())));
+        return jwtUtils.generateRefreshToken(authentication, tokenId, familyId, expiresAt);
+    }
+
+    // Records a legacy token as used; false if it already was (here or on another node)
+    private boolean consumeLegacy(String legacyId, Long userId, JwtClaims claims) {
+        if (revokedIds.get(legacyId) != null || refreshTokenRepository.existsById(legacyId)) return false;
+        Date expiresAt = claims.getExpiresAt() != null ? claims.getExpiresAt()
+                : new Date(System.currentTimeMillis() + jwtUtils.getRefreshExpirationMs());
+        try {
+            // A plain INSERT: a concurrent use that got past the check above (here or on another
+            // node) hits the primary key and is rejected like a replay
+            legacyInsert.executeWithoutResult(status -> refreshTokenRepository.insertConsumed(legacyId, userId,
+                    LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault()), LocalDateTime.now()));
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+        markRevoked(legacyId, expiresAt);
+        return true;
+    }
+
+    private static String legacyId(String token) {
+        return UUID.nameUUIDFromBytes(token.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private void revokeFamily(String familyId, String tokenId) {
+        String family = familyId != null ? familyId : tokenId;
+        int revoked = refreshTokenRepository.revokeFamily(family);
+        if (revoked > 0) {
+            logger.warn("[RefreshTokenService] Refresh token {} reused or revoked; revoked {} tokens of family {}", tokenId, revoked, family);
+        }
+        refreshTokenRepository.findIdsByFamily(family).forEach(this::markRevoked);
+    }
+
+    private void markRevoked(Object[] idAndExpiry) {
+        LocalDateTime expiresAt = (LocalDateTime) idAndExpiry[1];
+        revokedIds.put((String) idAndExpiry[0], Boolean.TRUE, expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private void markRevoked(String tokenId, Date expiresAt) {
+        if (expiresAt != null) revokedIds.put(tokenId, Boolean.TRUE, expiresAt.getTime());
+    }
+}
@@ -0,0 +1,344 @@
+package com.garageservice.service;
+
+import com.garageservice.dto.RoadDistanceResponse;
+import com.garageservice.model.RouteCacheEntry;
+import com.garageservice.repository.RouteCacheEntryRepository;
+import com.garageservice.util.ExpiringCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Road distance lookups with a two-level cache: a bounded in-memory map in front of an optional
+ * persistent table (route_cache) so a restart doesn't send every lookup back to OSRM.
+ * Distance/duration and route geometry are cached separately; geometry is kept packed
+ * (see {@link PolylineCodec#pack}) under its own byte budget and only decoded when requested.
+ * Provider calls are bounded by connect/read timeouts, and a route the provider could not answer
+ * is not asked again for routing.osrm.failureTtlMs, so an outage costs one slow call per route.
+ */
+@Service
+public class RoutingService {
+    private static final Logger logger = LoggerFactory.getLogger(RoutingService.class);
+
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private RouteCacheEntryRepository routeCacheEntryRepository;
+
+    @Value("${routing.provider:osrm}")
+    private String provider; // osrm|google|mapbox (currently osrm implemented)
+
+    @Value("${routing.osrm.baseUrl:https://router.project-osrm.org}")
+    private String osrmBaseUrl;
+
+    @Value("${routing.osrm.connectTimeoutMs:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${routing.osrm.readTimeoutMs:3000}")
+    private int readTimeoutMs;
+
+    @Value("${routing.osrm.failureTtlMs:30000}")
+    private long failureTtlMs;
+
+    @Value("${routing.cache.ttlHours:168}")
+    private long ttlHours;
+
+    @Value("${routing.cache.maxEntries:50000}")
+    private int maxEntries;
+
+    @Value("${routing.cache.persistent.enabled:false}")
+    private boolean persistentEnabled;
+
+    // Number of most requested routes loaded into memory at startup (0 disables pre-warming)
+    @Value("${routing.cache.prewarm.size:200}")
+    private int prewarmSize;
+
+    @Value("${routing.cache.geometry.maxBytes:4194304}")
+    private long geometryMaxBytes;
+
+    private static final int OSRM_PRECISION = 6;
+
+    // Distance/duration only; geometry lives in geometryCache
+    private ExpiringCache<String, RoadDistanceResponse> cache;
+    private GeometryCache geometryCache;
+    // Hits not yet written to route_cache.hit_count (used to rank pre-warm candidates)
+    private final ConcurrentHashMap<String, LongAdder> pendingHits = new ConcurrentHashMap<>();
+    // Routes the provider recently failed to answer
+    private final ExpiringCache<String, Boolean> failures = new ExpiringCache<>(10_000);
+
+    @PostConstruct
+    void init() {
+        cache = new ExpiringCache<>(maxEntries);
+        geometryCache = new GeometryCache(geometryMaxBytes);
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        restTemplate = new RestTemplate(requestFactory);
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    /**
+     * Returns distance and duration between two points (no geometry), or null if the provider
+     * could not route it. Lookup order: memory, persistent store (if enabled), provider.
+     */
+    public RoadDistanceResponse route(double originLat, double originLng, double destLat, double destLng) {
+        String key = cacheKey(originLat, originLng, destLat, destLng);
+        RoadDistanceResponse cached = cache.get(key);
+        if (cached != null) {
+            countHit(key);
+            return cached;
+        }
+
+        RouteCacheEntry stored = loadFromStore(key);
+        if (stored != null) {
+            RoadDistanceResponse resp = metrics(stored.getDistanceMeters(), stored.getDurationSeconds());
+            cache.put(key, resp, expiryMillis());
+            if (stored.getGeometry() != null) geometryCache.put(key, stored.getGeometry());
+            return resp;
+        }
+        return fetch(key, originLat, originLng, destLat, destLng);
+    }
+
+    /** Distance and duration if already in memory, without touching the store or the provider. */
+    public RoadDistanceResponse cachedRoute(double originLat, double originLng, double destLat, double destLng) {
+        return cache.get(cacheKey(originLat, originLng, destLat, destLng));
+    }
+
+    /**
+     * Same as {@link #route(double, double, double, double)} but optionally attaches the route
+     * geometry as polyline6. When zoom is given the geometry is simplified to about one pixel
+     * at that map zoom level.
+     */
+    public RoadDistanceResponse route(double originLat, double originLng, double destLat, double destLng,
+                                      boolean geometry, Integer zoom) {
+        RoadDistanceResponse metrics = route(originLat, originLng, destLat, destLng);
+        if (metrics == null || !geometry) return metrics;
+
+        String key = cacheKey(originLat, originLng, destLat, destLng);
+        byte[] packed = geometryCache.get(key);
+        if (packed == null) {
+            RouteCacheEntry stored = loadFromStore(key);
+            if (stored != null && stored.getGeometry() != null) {
+                packed = stored.getGeometry();
+                geometryCache.put(key, packed);
+            }
+        }
+        if (packed == null) {
+            // Geometry was evicted; ask the provider again (refreshes both caches). If it can't
+            // answer, the cached distance/duration is still good, just without a polyline.
+            RoadDistanceResponse refreshed = fetch(key, originLat, originLng, destLat, destLng);
+            if (refreshed != null) {
+                metrics = refreshed;
+                packed = geometryCache.get(key);
+            }
+        }
+
+        RoadDistanceResponse resp = metrics(metrics.getDistanceMeters(), metrics.getDurationSeconds());
+        if (packed != null) {
+            int[] coords = PolylineCodec.unpack(packed);
+            if (zoom != null) {
+                coords = PolylineCodec.simplify(coords, PolylineCodec.toleranceForZoom(zoom, originLat), OSRM_PRECISION);
+            }
+            resp.setPolyline(PolylineCodec.encode(coords));
+            resp.setPrecision(OSRM_PRECISION);
+        }
+        return resp;
+    }
+
+    private RoadDistanceResponse fetch(String key, double originLat, double originLng, double destLat, double destLng) {
+        if (failures.get(key) != null) return null;
+        RoadDistanceResponse full;
+        try {
+            switch (provider.toLowerCase()) {
+                case "osrm":
+                default:
+                    full = queryOsrm(originLat, originLng, destLat, destLng);
+                    break;
+            }
+        } catch (RestClientException e) {
+            logger.warn("[RoutingService] Routing provider failed: {}", e.getMessage());
+            full = null;
+        }
+        if (full == null) {
+            failures.put(key, Boolean.TRUE, System.currentTimeMillis() + failureTtlMs);
+            return null;
+        }
+        byte[] packed = full.getPolyline() == null ? null : PolylineCodec.pack(PolylineCodec.decode(full.getPolyline()));
+        RoadDistanceResponse resp = metrics(full.getDistanceMeters(), full.getDurationSeconds());
+        cache.put(key, resp, expiryMillis());
+        if (packed != null) geometryCache.put(key, packed);
+        saveToStore(key, originLat, originLng, destLat, destLng, resp, packed);
+        return resp;
+    }
+
+    private static RoadDistanceResponse metrics(double distanceMeters, double durationSeconds) {
+        return new RoadDistanceResponse(distanceMeters, durationSeconds);
+    }
+
+    private String cacheKey(double originLat, double originLng, double destLat, double destLng) {
+        return String.format("%s|%s|%s|%s|%s", provider, originLat, originLng, destLat, destLng);
+    }
+
+    private long expiryMillis() {
+        return System.currentTimeMillis() + ttlHours * 3_600_000L;
+    }
+
+    private void countHit(String key) {
+        if (!persistentEnabled) return;
+        pendingHits.computeIfAbsent(key, k -> new LongAdder()).increment();
+    }
+
+    private RouteCacheEntry loadFromStore(String key) {
+        if (!persistentEnabled) return null;
+        try {
+            var opt = routeCacheEntryRepository.findById(key);
+            if (opt.isEmpty()) return null;
+            RouteCacheEntry entry = opt.get();
+            if (entry.getExpiresAt().isBefore(LocalDateTime.now())) {
+                routeCacheEntryRepository.delete(entry);
+                return null;
+            }
+            countHit(key);
+            return entry;
+        } catch (Exception e) {
+            // The store is only an optimisation; fall through to the provider
+            logger.warn("[RoutingService] Route cache read failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveToStore(String key, double originLat, double originLng, double destLat, double destLng,
+                             RoadDistanceResponse resp, byte[] geometry) {
+        if (!persistentEnabled) return;
+        try {
+            RouteCacheEntry entry = new RouteCacheEntry(key, provider, originLat, originLng, destLat, destLng,
+                    LocalDateTime.now().plusHours(ttlHours));
+            entry.setDistanceMeters(resp.getDistanceMeters());
+            entry.setDurationSeconds(resp.getDurationSeconds());
+            entry.setGeometry(geometry);
+            entry.setPrecision(geometry == null ? null : OSRM_PRECISION);
+            entry.setHitCount(1);
+            routeCacheEntryRepository.save(entry);
+        } catch (Exception e) {
+            logger.warn("[RoutingService] Route cache write failed: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarm() {
+        if (!persistentEnabled) return;
+        try {
+            int removed = routeCacheEntryRepository.deleteExpired(LocalDateTime.now());
+            if (prewarmSize <= 0) return;
+            List<RouteCacheEntry> top = routeCacheEntryRepository.findByExpiresAtAfterOrderByHitCountDesc(
+                    LocalDateTime.now(), PageRequest.of(0, prewarmSize));
+            for (RouteCacheEntry entry : top) {
+                long expiresAt = entry.getExpiresAt().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
+                RoadDistanceResponse resp = metrics(entry.getDistanceMeters(), entry.getDurationSeconds());
+                if (cache.get(entry.getCacheKey()) == null) cache.put(entry.getCacheKey(), resp, expiresAt);
+            }
+            logger.info("[RoutingService] Pre-warmed {} routes ({} expired removed)", top.size(), removed);
+        } catch (Exception e) {
+            logger.warn("[RoutingService] Route cache pre-warm failed: {}", e.getMessage());
+        }
+    }
+
+    /** Writes counted hits to route_cache in one batch per interval rather than one UPDATE per hit. */
+    @Scheduled(initialDelayString = "${routing.cache.hitFlushMs:60000}", fixedDelayString = "${routing.cache.hitFlushMs:60000}")
+    @PreDestroy
+    public void flushHits() {
+        if (!persistentEnabled || pendingHits.isEmpty()) return;
+        try {
+            for (Map.Entry<String, LongAdder> e : pendingHits.entrySet()) {
+                long hits = e.getValue().sumThenReset();
+                if (hits > 0) routeCacheEntryRepository.addHits(e.getKey(), hits);
+                else pendingHits.remove(e.getKey(), e.getValue()); // not hit since the last flush
+            }
+        } catch (Exception e) {
+            logger.warn("[RoutingService] Failed to flush route cache hit counts: {}", e.getMessage());
+        }
+    }
+
+    private RoadDistanceResponse queryOsrm(double originLat, double originLng, double destLat, double destLng) {
+        // OSRM expects lon,lat ordering; request geometry as polyline6 (precision 6)
+        String path = String.format("/route/v1/driving/%f,%f;%f,%f", originLng, originLat, destLng, destLat);
+        URI uri = UriComponentsBuilder.fromHttpUrl(osrmBaseUrl + path)
+                .queryParam("overview", "full")
+                .queryParam("geometries", "polyline6")
+                .queryParam("alternatives", "false")
+                .queryParam("annotations", "false")
+                .build(true).toUri();
+
+        Map<?,?> json = restTemplate.getForObject(uri, Map.class);
+        if (json == null || !"Ok".equals(json.get("code"))) {
+            return null;
+        }
+        var routes = (java.util.List<?>) json.get("routes");
+        if (routes == null || routes.isEmpty()) {
+            return null;
+        }
+        var first = (Map<?,?>) routes.get(0);
+        double distance = ((Number) first.get("distance")).doubleValue(); // meters
+        double duration = ((Number) first.get("duration")).doubleValue(); // seconds
+        String polyline = null;
+        Object geometryObj = first.get("geometry");
+        if (geometryObj instanceof String) {
+            polyline = (String) geometryObj; // encoded polyline6
+        }
+        RoadDistanceResponse resp = new RoadDistanceResponse(distance, duration);
+        resp.setPolyline(polyline);
+        resp.setPrecision(OSRM_PRECISION);
+        return resp;
+    }
+
+    /** LRU of packed geometries bounded by total byte size rather than entry count. */
+    private static final class GeometryCache {
+        private final long maxBytes;
+        private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+        private long totalBytes;
+
+        GeometryCache(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized byte[] get(String key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(String key, byte[] packed) {
+            if (packed.length > maxBytes) return;
+            byte[] previous = entries.put(key, packed);
+            if (previous != null) totalBytes -= previous.length;
+            totalBytes += packed.length;
+            Iterator<byte[]> it = entries.values().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                totalBytes -= it.next().length;
+                it.remove();
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.garageservice.service;
 
 import com.garageservice.model.User;
 import com.garageservice.repository.UserRepository;
+import com.garageservice.security.PrincipalCache;
 import com.garageservice.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,6 +16,9 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    PrincipalCache principalCache;
+
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
@@ -23,4 +27,12 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
         return UserPrincipal.create(user);
     }
+
+    /**
+     * Same as {@link #loadUserByUsername} but served from the principal cache when possible.
+     * Only for already-verified tokens; password login must keep using the uncached lookup.
+     */
+    public UserPrincipal loadCachedUserByUsername(String email) throws UsernameNotFoundException {
+        return principalCache.get(email, () -> (UserPrincipal) loadUserByUsername(email));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.garageservice.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+
+/**
+ * Small concurrent map with a per-entry expiry and a hard size bound. When full, expired
+ * entries are purged first, then arbitrary entries are dropped until there is room again.
+ */
+public class ExpiringCache<K, V> {
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    public ExpiringCache(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /** Returns the live value for the key, or null if absent or expired. */
+    public V get(K key) {
+        Entry<V> e = entries.get(key);
+        if (e == null) return null;
+        if (e.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key, e);
+            return null;
+        }
+        return e.value;
+    }
+
+    public void put(K key, V value, long expiresAtMillis) {
+        if (expiresAtMillis <= System.currentTimeMillis()) return;
+        if (entries.size() >= maxSize && !entries.containsKey(key)) makeRoom();
+        entries.put(key, new Entry<>(value, expiresAtMillis));
+    }
+
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    public void removeIf(BiPredicate<K, V> predicate) {
+        entries.entrySet().removeIf(e -> predicate.test(e.getKey(), e.getValue().value));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void makeRoom() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(e -> e.expiresAt <= now);
+        // Still full: drop about a tenth of the entries rather than evicting one per insert
+        int target = maxSize - Math.max(1, maxSize / 10);
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (entries.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
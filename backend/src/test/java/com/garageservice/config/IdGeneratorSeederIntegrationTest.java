@@ -0,0 +1,126 @@
+package com.garageservice.config;
+
+import com.garageservice.model.IdGenerators;
+import com.garageservice.model.Notification;
+import com.garageservice.model.User;
+import com.garageservice.repository.NotificationRepository;
+import com.garageservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idgeneratordb;DB_CLOSE_DELAY=-1;MODE=MYSQL",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "app.jwtSecret=testSecretKeyThatIsLongEnoughForHS256",
+        "app.mail.provider=noop",
+        "app.mail.enabled=false",
+        // Management server on a free port so cached test contexts don't collide on 8081
+        "management.server.port=0"
+})
+// The seeding test needs Hibernate to take its first block of ids after seed(), so it runs first
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class IdGeneratorSeederIntegrationTest {
+
+    @Autowired
+    private IdGeneratorSeeder seeder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setup() {
+        user = userRepository.findByEmail("ids@example.com").orElseGet(() -> userRepository.save(
+                new User("Id", "Gen", "ids@example.com", "0000000044", "unused", User.UserType.CUSTOMER)));
+    }
+
+    @Test
+    @Order(1)
+    void afterSeeding_bulkInsertsGetUniqueIncreasingIdsAboveExistingRows() {
+        // Rows written while the table still used IDENTITY, far ahead of the generator
+        long legacyMax = 4321;
+        insertLegacyNotification(7);
+        insertLegacyNotification(legacyMax);
+
+        seeder.seed();
+        assertThat(nextVal()).isGreaterThan(legacyMax + IdGenerators.ALLOCATION_SIZE);
+        // Running it again (another node starting) never lowers next_val
+        long seeded = nextVal();
+        seeder.seed();
+        assertThat(nextVal()).isEqualTo(seeded);
+
+        // One batched saveAll and then single saves, spanning several allocation blocks
+        List<Notification> batch = new ArrayList<>();
+        for (int i = 0; i < 80; i++) batch.add(new Notification(user, "bulk " + i, "m"));
+        List<Long> ids = new ArrayList<>();
+        notificationRepository.saveAll(batch).forEach(n -> ids.add(n.getId()));
+        for (int i = 0; i < 45; i++) ids.add(notificationRepository.save(new Notification(user, "single " + i, "m")).getId());
+
+        assertThat(ids).hasSize(125).doesNotContainNull();
+        assertThat(new HashSet<>(ids)).hasSize(125);
+        assertThat(ids).isSorted();
+        assertThat(ids.get(0)).isGreaterThan(legacyMax);
+        assertThat(notificationRepository.count()).isEqualTo(127);
+    }
+
+    /**
+     * Rough throughput of batched notification inserts with table-generated ids:
+     * mvn test -Dtest=IdGeneratorSeederIntegrationTest -Dbenchmarks=true
+     */
+    @Test
+    @Order(2)
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void benchmark_bulkInsert() {
+        int rows = 5000;
+        List<Notification> warmup = new ArrayList<>();
+        for (int i = 0; i < 500; i++) warmup.add(new Notification(user, "warmup " + i, "m"));
+        notificationRepository.saveAll(warmup);
+
+        List<Notification> batch = new ArrayList<>();
+        for (int i = 0; i < rows; i++) batch.add(new Notification(user, "bench " + i, "m"));
+        long start = System.nanoTime();
+        List<Notification> saved = notificationRepository.saveAll(batch);
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        System.out.printf("[IdGeneratorSeederIntegrationTest] %d rows in %d ms (%d rows/s)%n",
+                rows, elapsedMs, rows * 1000L / elapsedMs);
+        assertThat(saved.stream().map(Notification::getId).distinct().count()).isEqualTo(rows);
+    }
+
+    private void insertLegacyNotification(long id) {
+        jdbcTemplate.update("INSERT INTO notifications (id, user_id, title, message, read_flag, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                id, user.getId(), "legacy " + id, "m", false, LocalDateTime.now());
+    }
+
+    private long nextVal() {
+        return jdbcTemplate.queryForObject("SELECT " + IdGenerators.VALUE_COLUMN + " FROM " + IdGenerators.TABLE
+                + " WHERE " + IdGenerators.PK_COLUMN + " = ?", Long.class, "notifications");
+    }
+}
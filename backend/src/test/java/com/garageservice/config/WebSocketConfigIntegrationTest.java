@@ -0,0 +1,160 @@
+package com.garageservice.config;
+
+import com.garageservice.model.User;
+import com.garageservice.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:websocketdb;DB_CLOSE_DELAY=-1;MODE=MYSQL",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "app.jwtSecret=testSecretKeyThatIsLongEnoughForHS256",
+        "app.mail.provider=noop",
+        "app.mail.enabled=false",
+        "app.auth.rateLimit.enabled=false",
+        "app.websocket.heartbeatMs=2000",
+        "app.websocket.sendTimeLimitMs=3000",
+        "app.websocket.sendBufferSizeLimit=4096",
+        "app.websocket.messageSizeLimit=1024"
+})
+public class WebSocketConfigIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private SubProtocolWebSocketHandler subProtocolWebSocketHandler;
+
+    private final ThreadPoolTaskScheduler clientScheduler = new ThreadPoolTaskScheduler();
+    private WebSocketStompClient stompClient;
+    private String accessToken;
+
+    @BeforeEach
+    void setup() {
+        if (userRepository.findByEmail("stomp@example.com").isEmpty()) {
+            userRepository.save(new User("Stomp", "Client", "stomp@example.com", "0000000003",
+                    passwordEncoder.encode("Password1!"), User.UserType.CUSTOMER));
+        }
+        var response = restTemplate.postForEntity("/api/auth/signin",
+                Map.of("email", "stomp@example.com", "password", "Password1!"), Map.class);
+        accessToken = (String) response.getBody().get("token");
+
+        clientScheduler.initialize();
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setTaskScheduler(clientScheduler);
+        stompClient.setDefaultHeartbeat(new long[]{2000, 2000});
+    }
+
+    @AfterEach
+    void tearDown() {
+        stompClient.stop();
+        clientScheduler.shutdown();
+    }
+
+    @Test
+    void connect_negotiatesConfiguredHeartbeat() throws Exception {
+        CompletableFuture<StompHeaders> connected = new CompletableFuture<>();
+        StompSession session = connect(new StompSessionHandlerAdapter() {
+            @Override
+            public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+                connected.complete(connectedHeaders);
+            }
+        });
+        try {
+            assertThat(connected.get(10, TimeUnit.SECONDS).getHeartbeat()).containsExactly(2000, 2000);
+        } finally {
+            session.disconnect();
+        }
+    }
+
+    @Test
+    void sendLimits_areAppliedToSessions() throws Exception {
+        assertThat(subProtocolWebSocketHandler.getSendTimeLimit()).isEqualTo(3000);
+        assertThat(subProtocolWebSocketHandler.getSendBufferSizeLimit()).isEqualTo(4096);
+
+        // A client frame over messageSizeLimit is refused with an ERROR frame
+        CompletableFuture<StompHeaders> error = new CompletableFuture<>();
+        StompSession session = connect(new StompSessionHandlerAdapter() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                error.complete(headers);
+            }
+
+            @Override
+            public void handleTransportError(StompSession session, Throwable exception) {
+                error.completeExceptionally(exception);
+            }
+        });
+        StompHeaders send = new StompHeaders();
+        send.setDestination("/app/requests/1/location");
+        session.send(send, new byte[2048]);
+        assertThat(error.get(10, TimeUnit.SECONDS).getFirst("message")).isNotBlank();
+    }
+
+    @Test
+    void metrics_areOnlyServedOnTheManagementPort() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(accessToken);
+        var onApiPort = restTemplate.exchange("/actuator/metrics", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertThat(onApiPort.getStatusCode().is2xxSuccessful()).isFalse();
+        assertThat(onApiPort.getBody()).doesNotContain("websocket.sessions.open");
+
+        var health = restTemplate.getForEntity("http://localhost:" + managementPort + "/actuator/health", String.class);
+        assertThat(health.getStatusCode()).isEqualTo(HttpStatus.OK);
+        var metrics = restTemplate.getForEntity("http://localhost:" + managementPort + "/actuator/metrics", String.class);
+        assertThat(metrics.getBody()).contains("websocket.sessions.open");
+    }
+
+    private StompSession connect(StompSessionHandlerAdapter handler) throws Exception {
+        return stompClient.connectAsync("ws://localhost:" + port + "/ws/websocket?access_token=" + accessToken, handler)
+                .get(10, TimeUnit.SECONDS);
+    }
+}
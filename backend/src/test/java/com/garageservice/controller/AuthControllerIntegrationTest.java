@@ -3,6 +3,9 @@ package com.garageservice.controller;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.garageservice.repository.UserRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -10,6 +13,16 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -30,7 +43,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
         "app.jwtRefreshExpirationMs=120000",
         // Disable external email sending during tests
         "app.mail.provider=noop",
-        "app.mail.enabled=false"
+        "app.mail.enabled=false",
+        // Management server on a free port so cached test contexts don't collide on 8081
+        "management.server.port=0"
 })
 class AuthControllerIntegrationTest {
 
@@ -124,4 +139,188 @@ class AuthControllerIntegrationTest {
         JsonNode json = objectMapper.readTree(resp.getResponse().getContentAsString());
         assertThat(json.get("message").asText()).contains("Invalid");
     }
+
+    @Test
+    void refresh_rotatesToken_andReuseRevokesFamily() throws Exception {
+        var signupBody = java.util.Map.of(
+                "firstName", "Rita",
+                "lastName", "Roe",
+                "email", "rita@example.com",
+                "phoneNumber", "1234567891",
+                "password", "Oldpass1!",
+                "userType", "CUSTOMER"
+        );
+        mockMvc.perform(post("/api/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJson(signupBody)))
+                .andExpect(status().isOk());
+        var signin = mockMvc.perform(post("/api/auth/signin")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJson(java.util.Map.of("email", "rita@example.com", "password", "Oldpass1!"))))
+                .andExpect(status().isOk())
+                .andReturn();
+        String first = objectMapper.readTree(signin.getResponse().getContentAsString()).get("refreshToken").asText();
+
+        // 1) Using the refresh token returns a new access token and a different refresh token
+        var refreshed = mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJson(java.util.Map.of("refreshToken", first))))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode refreshedJson = objectMapper.readTree(refreshed.getResponse().getContentAsString());
+        assertThat(refreshedJson.has("accessToken")).isTrue();
+        String second = refreshedJson.get("refreshToken").asText();
+        assertThat(second).isNotEqualTo(first);
+
+        // 2) Replaying the consumed token is rejected...
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJson(java.util.Map.of("refreshToken", first))))
+                .andExpect(status().isUnauthorized());
+
+        // 3) ...and revokes the token that was rotated from it
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJson(java.util.Map.of("refreshToken", second))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void legacyRefreshToken_isAcceptedOnceThenRejected() throws Exception {
+        var signupBody = java.util.Map.of(
+                "firstName", "Leo",
+                "lastName", "Lee",
+                "email", "leo@example.com",
+                "phoneNumber", "1234567892",
+                "password", "Oldpass1!",
+                "userType", "CUSTOMER"
+        );
+        mockMvc.perform(post("/api/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJson(signupBody)))
+                .andExpect(status().isOk());
+        String legacy = legacyRefreshToken("leo@example.com");
+
+        // 1) The first use migrates it onto the token store
+        var refreshed = mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJson(java.util.Map.of("refreshToken", legacy))))
+                .andExpect(status().isOk())
+                .andReturn();
+        String successor = objectMapper.readTree(refreshed.getResponse().getContentAsString()).get("refreshToken").asText();
+
+        // 2) A replay is rejected and revokes the family the first use started
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJson(java.util.Map.of("refreshToken", legacy))))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJson(java.util.Map.of("refreshToken", successor))))
+                .andExpect(status().isUnauthorized());
+
+        // 3) Logout revokes a legacy token that was never used
+        String other = legacyRefreshToken("leo@example.com");
+        mockMvc.perform(post("/api/auth/logout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJson(java.util.Map.of("refreshToken", other))))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJson(java.util.Map.of("refreshToken", other))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void legacyRefreshToken_concurrentUses_onlyOneSucceeds() throws Exception {
+        var signupBody = java.util.Map.of(
+                "firstName", "Lia",
+                "lastName", "Lee",
+                "email", "lia@example.com",
+                "phoneNumber", "1234567893",
+                "password", "Oldpass1!",
+                "userType", "CUSTOMER"
+        );
+        mockMvc.perform(post("/api/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJson(signupBody)))
+                .andExpect(status().isOk());
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 5; round++) {
+                String legacy = legacyRefreshToken("lia@example.com", round);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Integer>> uses = new ArrayList<>();
+                for (int i = 0; i < 2; i++) {
+                    uses.add(pool.submit(() -> {
+                        start.await();
+                        return mockMvc.perform(post("/api/auth/refresh")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content(asJson(java.util.Map.of("refreshToken", legacy))))
+                                .andReturn().getResponse().getStatus();
+                    }));
+                }
+                start.countDown();
+                List<Integer> statuses = new ArrayList<>();
+                for (Future<Integer> use : uses) statuses.add(use.get(30, TimeUnit.SECONDS));
+                // Whichever use loses the race gets the same 401 as a replay, never a 500
+                assertThat(statuses).containsExactlyInAnyOrder(200, 401);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void signin_overEmailLimit_is429WithRetryAfter() throws Exception {
+        var signupBody = java.util.Map.of(
+                "firstName", "Rob",
+                "lastName", "Lim",
+                "email", "rob@example.com",
+                "phoneNumber", "1234567894",
+                "password", "Oldpass1!",
+                "userType", "CUSTOMER"
+        );
+        mockMvc.perform(post("/api/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJson(signupBody)))
+                .andExpect(status().isOk());
+
+        // Its own client address, so other tests' logins don't share the IP bucket
+        RequestPostProcessor client = request -> {
+            request.setRemoteAddr("10.0.0.34");
+            return request;
+        };
+        String wrong = asJson(java.util.Map.of("email", "rob@example.com", "password", "Wrongpass1!"));
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/api/auth/signin").with(client)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(wrong))
+                    .andExpect(status().isBadRequest());
+        }
+        // The 6th attempt in the window is refused before the password is even checked
+        var limited = mockMvc.perform(post("/api/auth/signin").with(client)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJson(java.util.Map.of("email", "rob@example.com", "password", "Oldpass1!"))))
+                .andExpect(status().isTooManyRequests())
+                .andReturn();
+        assertThat(Long.parseLong(limited.getResponse().getHeader("Retry-After"))).isPositive();
+    }
+
+    private String legacyRefreshToken(String email) {
+        return legacyRefreshToken(email, 0);
+    }
+
+    // A refresh token as issued before rotation: no jti, fam or uid claims (n only tells test tokens apart)
+    private String legacyRefreshToken(String email, int n) {
+        return Jwts.builder()
+                .setSubject(email)
+                .claim("n", n)
+                .claim("type", "refresh")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 120000))
+                .signWith(Keys.hmacShaKeyFor("testSecretKeyThatIsLongEnoughForHS256".getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+    }
 }
@@ -0,0 +1,207 @@
+package com.garageservice.controller;
+
+import com.garageservice.model.Garage;
+import com.garageservice.model.GarageService;
+import com.garageservice.repository.GarageRepository;
+import com.garageservice.repository.GarageServiceRepository;
+import com.garageservice.service.CatalogCacheService;
+import com.garageservice.service.GarageDirectoryService;
+import com.garageservice.service.GarageSearchIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:garagedb;DB_CLOSE_DELAY=-1;MODE=MYSQL",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "app.jwtSecret=testSecretKeyThatIsLongEnoughForHS256",
+        "app.mail.provider=noop",
+        "app.mail.enabled=false",
+        // Management server on a free port so cached test contexts don't collide on 8081
+        "management.server.port=0"
+})
+public class GarageControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private GarageRepository garageRepository;
+
+    @Autowired
+    private GarageServiceRepository garageServiceRepository;
+
+    @Autowired
+    private GarageDirectoryService garageDirectoryService;
+
+    @Autowired
+    private GarageSearchIndex garageSearchIndex;
+
+    @Autowired
+    private CatalogCacheService catalogCacheService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Garage first;
+    private Garage second;
+
+    @BeforeEach
+    void setup() {
+        garageServiceRepository.deleteAll();
+        garageRepository.deleteAll();
+        first = garageRepository.save(new Garage("Alpha Motors", "1 Main St", -1.95, 30.06, "Brakes", "8-17", null));
+        second = garageRepository.save(new Garage("Beta Auto", "2 Main St", -1.96, 30.07, "Tyres", "8-17", null));
+        garageServiceRepository.save(new GarageService("Brake pads replacement", "Front and rear pads", new BigDecimal("80"), 60, first));
+        garageServiceRepository.save(new GarageService("Oil change", "Synthetic oil and filter", new BigDecimal("40"), 30, second));
+        garageDirectoryService.invalidate();
+        garageSearchIndex.rebuild();
+    }
+
+    @Test
+    void directory_pagesWithKeysetCursor() throws Exception {
+        MvcResult page = mockMvc.perform(get("/api/garages")
+                        .param("size", "1")
+                        .param("after", String.valueOf(first.getId() - 1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(first.getId()))
+                .andExpect(jsonPath("$[0].name").value("Alpha Motors"))
+                .andExpect(jsonPath("$[0].services").doesNotExist())
+                .andReturn();
+        String next = page.getResponse().getHeader("X-Next-Cursor");
+        assertThat(next).isEqualTo(String.valueOf(first.getId()));
+
+        mockMvc.perform(get("/api/garages").param("size", "1").param("after", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(second.getId()));
+    }
+
+    @Test
+    void directory_firstPageIsGzippedSnapshotWithEtag() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/garages").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+        byte[] body = result.getResponse().getContentAsByteArray();
+        String json;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertThat(json).contains("Alpha Motors").contains("Beta Auto");
+
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/garages").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void search_matchesServicesWithTyposAndFilters() throws Exception {
+        mockMvc.perform(get("/api/garages/search").param("q", "brake pad"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].garageId").value(first.getId()));
+
+        // Typo and prefix
+        mockMvc.perform(get("/api/garages/search").param("q", "brkae pa"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].garageId").value(first.getId()));
+        // Swapped first letters are still found among the narrowed candidates
+        mockMvc.perform(get("/api/garages/search").param("q", "rbake"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].garageId").value(first.getId()));
+
+        mockMvc.perform(get("/api/garages/search").param("q", "beta"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].garageId").value(second.getId()));
+
+        // Price and radius filters
+        mockMvc.perform(get("/api/garages/search").param("q", "oil").param("maxPrice", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(get("/api/garages/search").param("q", "oil")
+                        .param("latitude", "-1.96").param("longitude", "30.07").param("radiusKm", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].garageId").value(second.getId()))
+                .andExpect(jsonPath("$[0].distanceKm").value(0.0));
+    }
+
+    @Test
+    void search_byServiceAndPrice_returnsMatchingServicesAndDistance() throws Exception {
+        mockMvc.perform(get("/api/garages/search")
+                        .param("service", "oil chnage")
+                        .param("maxPrice", "50")
+                        .param("latitude", "-1.95").param("longitude", "30.06").param("radiusKm", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].garageId").value(second.getId()))
+                .andExpect(jsonPath("$[0].distanceKm").isNumber())
+                .andExpect(jsonPath("$[0].services.length()").value(1))
+                .andExpect(jsonPath("$[0].services[0].name").value("Oil change"))
+                .andExpect(jsonPath("$[0].services[0].price").value(40.0));
+
+        // Beta Auto's description mentions tyres, but a service search only looks at services
+        mockMvc.perform(get("/api/garages/search").param("service", "tyres"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+
+        mockMvc.perform(get("/api/garages/search")
+                        .param("latitude", "-1.96").param("longitude", "30.07").param("sort", "distance"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].garageId").value(second.getId()))
+                .andExpect(jsonPath("$[1].garageId").value(first.getId()));
+    }
+
+    @Test
+    void catalog_servedFromCacheUntilEvicted() {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        garageServiceRepository.findByGarageId(first.getId());
+        stats.clear();
+
+        List<GarageService> cached = garageServiceRepository.findByGarageId(first.getId());
+        assertThat(cached).extracting(GarageService::getName).containsExactly("Brake pads replacement");
+        assertThat(stats.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(stats.getQueryExecutionCount()).isZero();
+
+        // A write that bypasses Hibernate is invisible until the catalog is evicted
+        jdbcTemplate.update("UPDATE garage_services SET name = 'Brake discs' WHERE garage_id = ?", first.getId());
+        assertThat(garageServiceRepository.findByGarageId(first.getId()))
+                .extracting(GarageService::getName).containsExactly("Brake pads replacement");
+
+        catalogCacheService.evictServices(first.getId(), cached.get(0).getId());
+        stats.clear();
+        assertThat(garageServiceRepository.findByGarageId(first.getId()))
+                .extracting(GarageService::getName).containsExactly("Brake discs");
+        assertThat(stats.getQueryCacheMissCount()).isEqualTo(1);
+        assertThat(stats.getQueryExecutionCount()).isEqualTo(1);
+    }
+}
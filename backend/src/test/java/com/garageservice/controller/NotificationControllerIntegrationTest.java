@@ -0,0 +1,278 @@
+package com.garageservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.garageservice.config.CacheEvictionBroadcast;
+import com.garageservice.model.Notification;
+import com.garageservice.model.User;
+import com.garageservice.repository.DeviceTokenRepository;
+import com.garageservice.repository.NotificationRepository;
+import com.garageservice.repository.RefreshTokenRepository;
+import com.garageservice.repository.UserRepository;
+import com.garageservice.service.DeviceTokenService;
+import com.garageservice.service.NotificationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:notificationdb;DB_CLOSE_DELAY=-1;MODE=MYSQL",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "app.jwtSecret=testSecretKeyThatIsLongEnoughForHS256",
+        "app.mail.provider=noop",
+        "app.mail.enabled=false",
+        // Management server on a free port so cached test contexts don't collide on 8081
+        "management.server.port=0",
+        "app.auth.rateLimit.enabled=false"
+})
+public class NotificationControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private DeviceTokenRepository deviceTokenRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private DeviceTokenService deviceTokenService;
+
+    @Autowired
+    private CacheEvictionBroadcast cacheEvictionBroadcast;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private User alice;
+    private User bob;
+    private String aliceToken;
+    private String bobToken;
+
+    @BeforeEach
+    void setup() throws Exception {
+        deviceTokenRepository.deleteAll();
+        notificationRepository.deleteAll();
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+        alice = userRepository.save(new User("Alice", "A", "alice@example.com", "0000000001",
+                passwordEncoder.encode("Password1!"), User.UserType.CUSTOMER));
+        bob = userRepository.save(new User("Bob", "B", "bob@example.com", "0000000002",
+                passwordEncoder.encode("Password1!"), User.UserType.CUSTOMER));
+        aliceToken = signIn("alice@example.com");
+        bobToken = signIn("bob@example.com");
+    }
+
+    @Test
+    void unreadCount_followsCreateAndRead() throws Exception {
+        assertUnread(aliceToken, 0);
+        Notification first = notificationService.create(alice, "t1", "m1");
+        notificationService.create(alice, "t2", "m2");
+        notificationService.create(alice, "t3", "m3");
+        notificationService.create(bob, "t4", "m4");
+        assertUnread(aliceToken, 3);
+        assertUnread(bobToken, 1);
+
+        mockMvc.perform(put("/api/notifications/" + first.getId() + "/read")
+                        .header("Authorization", "Bearer " + aliceToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.read").value(true));
+        assertUnread(aliceToken, 2);
+
+        // Reading it again doesn't count twice; someone else's notification isn't found
+        mockMvc.perform(put("/api/notifications/" + first.getId() + "/read")
+                        .header("Authorization", "Bearer " + aliceToken))
+                .andExpect(status().isOk());
+        assertUnread(aliceToken, 2);
+        mockMvc.perform(put("/api/notifications/" + first.getId() + "/read")
+                        .header("Authorization", "Bearer " + bobToken))
+                .andExpect(status().isNotFound());
+        assertUnread(bobToken, 1);
+        assertThat(notificationRepository.countByUserIdAndReadFlagFalse(alice.getId())).isEqualTo(2);
+    }
+
+    @Test
+    void markAllRead_updatesOnlyUnreadRowsAndResetsTheCounter() throws Exception {
+        Notification first = notificationService.create(alice, "t1", "m1");
+        notificationService.create(alice, "t2", "m2");
+        notificationService.create(alice, "t3", "m3");
+        notificationService.create(bob, "t4", "m4");
+        notificationService.markRead(first);
+        assertUnread(aliceToken, 2);
+
+        mockMvc.perform(put("/api/notifications/mark-all-read")
+                        .header("Authorization", "Bearer " + aliceToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2));
+        assertUnread(aliceToken, 0);
+        assertThat(notificationRepository.countByUserIdAndReadFlagFalse(alice.getId())).isZero();
+        assertUnread(bobToken, 1);
+
+        // The feed reflects the bulk update, and new notifications count from zero again
+        mockMvc.perform(get("/api/notifications/my")
+                        .header("Authorization", "Bearer " + aliceToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].read", everyItem(is(true))));
+        notificationService.create(alice, "t5", "m5");
+        assertUnread(aliceToken, 1);
+    }
+
+    @Test
+    void feed_pagesWithCursorsUntilExhausted() throws Exception {
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) created.add(notificationService.create(alice, "t" + i, "m" + i).getId());
+        notificationService.create(bob, "other", "other");
+        Collections.reverse(created);
+
+        assertThat(readFeed(Map.of("limit", "2"))).containsExactlyElementsOf(created);
+        // sinceId pages the same way and stops at the anchor
+        assertThat(readFeed(Map.of("limit", "2", "sinceId", String.valueOf(created.get(4)))))
+                .containsExactlyElementsOf(created.subList(0, 4));
+    }
+
+    @Test
+    void feed_answers304UntilItChanges() throws Exception {
+        notificationService.create(alice, "t1", "m1");
+        MvcResult first = mockMvc.perform(get("/api/notifications/my")
+                        .header("Authorization", "Bearer " + aliceToken))
+                .andExpect(status().isOk())
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+        assertThat(etag).isNotBlank();
+
+        mockMvc.perform(get("/api/notifications/my")
+                        .header("Authorization", "Bearer " + aliceToken)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // A different page has its own tag
+        mockMvc.perform(get("/api/notifications/my").param("limit", "1")
+                        .header("Authorization", "Bearer " + aliceToken)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk());
+
+        notificationService.create(alice, "t2", "m2");
+        mockMvc.perform(get("/api/notifications/my")
+                        .header("Authorization", "Bearer " + aliceToken)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void feed_sinceMissingOrForeignNotification_is410() throws Exception {
+        Notification gone = notificationService.create(alice, "t1", "m1");
+        Notification bobs = notificationService.create(bob, "t2", "m2");
+        notificationRepository.delete(gone);
+
+        mockMvc.perform(get("/api/notifications/my").param("sinceId", String.valueOf(gone.getId()))
+                        .header("Authorization", "Bearer " + aliceToken))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.message").value("sinceId is no longer available; reload the feed"));
+        mockMvc.perform(get("/api/notifications/my").param("sinceId", String.valueOf(bobs.getId()))
+                        .header("Authorization", "Bearer " + aliceToken))
+                .andExpect(status().isGone());
+    }
+
+    @Test
+    void deviceToken_movedToAnotherUser_stopsReachingTheOldOwner() throws Exception {
+        registerDevice(aliceToken, "device-1");
+        assertThat(deviceTokenService.tokensFor(alice.getId())).containsExactly("device-1");
+
+        // Bob signs in on the same device
+        registerDevice(bobToken, "device-1");
+        assertThat(deviceTokenService.tokensFor(alice.getId())).isEmpty();
+        assertThat(deviceTokenService.tokensFor(bob.getId())).containsExactly("device-1");
+
+        // Another node moves it back to Alice: its broadcast eviction reaches this node's cache
+        deviceTokenRepository.refresh("device-1", alice, "android", LocalDateTime.now());
+        assertThat(deviceTokenService.tokensFor(bob.getId())).containsExactly("device-1");
+        cacheEvictionBroadcast.handleMessage(MessageBuilder
+                .withPayload(("device-tokens:" + bob.getId()).getBytes(StandardCharsets.UTF_8)).build());
+        assertThat(deviceTokenService.tokensFor(bob.getId())).isEmpty();
+    }
+
+    // Follows X-Next-Cursor from the first page to the last and returns the ids in order
+    private List<Long> readFeed(Map<String, String> params) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        for (int page = 0; page < 10; page++) {
+            MockHttpServletRequestBuilder request = get("/api/notifications/my")
+                    .header("Authorization", "Bearer " + aliceToken);
+            params.forEach(request::param);
+            if (cursor != null) request.param("before", cursor);
+            MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+            objectMapper.readTree(result.getResponse().getContentAsString()).forEach(n -> ids.add(n.get("id").asLong()));
+            cursor = result.getResponse().getHeader("X-Next-Cursor");
+            if (cursor == null) return ids;
+        }
+        throw new AssertionError("feed did not end");
+    }
+
+    private void assertUnread(String accessToken, long expected) throws Exception {
+        mockMvc.perform(get("/api/notifications/unread-count")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.unread").value(expected));
+    }
+
+    private void registerDevice(String accessToken, String deviceToken) throws Exception {
+        mockMvc.perform(post("/api/notifications/register-token")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("deviceToken", deviceToken, "platform", "android"))))
+                .andExpect(status().isOk());
+    }
+
+    private String signIn(String email) throws Exception {
+        String response = mockMvc.perform(post("/api/auth/signin")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("email", email, "password", "Password1!"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("token").asText();
+    }
+}
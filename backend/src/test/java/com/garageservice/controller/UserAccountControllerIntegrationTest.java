@@ -1,7 +1,9 @@
 package com.garageservice.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.garageservice.model.Notification;
 import com.garageservice.model.User;
+import com.garageservice.repository.NotificationRepository;
 import com.garageservice.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,7 +17,9 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -31,7 +35,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
         "app.jwtExpirationMs=60000",
         "app.jwtRefreshExpirationMs=120000",
         "app.mail.provider=noop",
-        "app.mail.enabled=false"
+        "app.mail.enabled=false",
+        // Management server on a free port so cached test contexts don't collide on 8081
+        "management.server.port=0",
+        "app.account.deletion.batchSize=2"
 })
 public class UserAccountControllerIntegrationTest {
 
@@ -41,6 +48,9 @@ public class UserAccountControllerIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private NotificationRepository notificationRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -57,6 +67,11 @@ public class UserAccountControllerIntegrationTest {
         User user = new User("Del","User", email, "0000000000", passwordEncoder.encode("Password1!"), User.UserType.CUSTOMER);
         userRepository.save(user);
 
+        accessToken = signIn(email);
+        assertThat(accessToken).isNotBlank();
+    }
+
+    private String signIn(String email) throws Exception {
         String body = objectMapper.writeValueAsString(java.util.Map.of(
                 "email", email,
                 "password", "Password1!"
@@ -66,8 +81,7 @@ public class UserAccountControllerIntegrationTest {
                         .content(body))
                 .andExpect(status().isOk())
                 .andReturn().getResponse().getContentAsString();
-        accessToken = objectMapper.readTree(response).get("token").asText();
-        assertThat(accessToken).isNotBlank();
+        return objectMapper.readTree(response).get("token").asText();
     }
 
     @Test
@@ -80,4 +94,53 @@ public class UserAccountControllerIntegrationTest {
         // Ensure user no longer exists
         assertThat(userRepository.findByEmail(email)).isEmpty();
     }
+
+    @Test
+    void deleteAccount_removesNotificationsInChunks() throws Exception {
+        User user = userRepository.findByEmail(email).orElseThrow();
+        for (int i = 0; i < 5; i++) notificationRepository.save(new Notification(user, "t" + i, "m" + i));
+
+        mockMvc.perform(delete("/api/account")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk());
+
+        assertThat(userRepository.findById(user.getId())).isEmpty();
+        assertThat(notificationRepository.countByUserIdAndReadFlagFalse(user.getId())).isZero();
+    }
+
+    @Test
+    void deleteAccount_async_canBePolled() throws Exception {
+        String response = mockMvc.perform(delete("/api/account").param("async", "true")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        String jobId = objectMapper.readTree(response).get("jobId").asText();
+
+        // Not for anonymous callers or other users
+        mockMvc.perform(get("/api/account/deletion-jobs/" + jobId))
+                .andExpect(status().isUnauthorized());
+        String otherEmail = "someone_else@example.com";
+        userRepository.findByEmail(otherEmail).ifPresent(u -> userRepository.delete(u));
+        userRepository.save(new User("Other","User", otherEmail, "0000000001", passwordEncoder.encode("Password1!"), User.UserType.CUSTOMER));
+        mockMvc.perform(get("/api/account/deletion-jobs/" + jobId)
+                        .header("Authorization", "Bearer " + signIn(otherEmail)))
+                .andExpect(status().isNotFound());
+
+        String state = "PENDING";
+        for (int i = 0; i < 50 && !state.equals("DONE") && !state.equals("FAILED"); i++) {
+            Thread.sleep(100);
+            String poll = mockMvc.perform(get("/api/account/deletion-jobs/" + jobId)
+                            .header("Authorization", "Bearer " + accessToken))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            state = objectMapper.readTree(poll).get("status").asText();
+        }
+        assertThat(state).isEqualTo("DONE");
+        assertThat(userRepository.findByEmail(email)).isEmpty();
+
+        mockMvc.perform(get("/api/account/deletion-jobs/unknown")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Job not found"));
+    }
 }
@@ -0,0 +1,105 @@
+package com.garageservice.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilsTest {
+
+    private static final String SECRET = "testSecretKeyThatIsLongEnoughForHS256";
+
+    private JwtUtils jwtUtils;
+    private Authentication authentication;
+
+    @BeforeEach
+    void setup() {
+        jwtUtils = jwtUtils(10_000);
+        UserPrincipal principal = UserPrincipal.fromClaims(7L, "jo@example.com", List.of("ROLE_CUSTOMER"));
+        authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    @Test
+    void verify_returnsClaimsFromOneParse() {
+        JwtClaims claims = jwtUtils.verify(jwtUtils.generateJwtToken(authentication));
+        assertThat(claims.getSubject()).isEqualTo("jo@example.com");
+        assertThat(claims.getUserId()).isEqualTo(7L);
+        assertThat(claims.isRefreshToken()).isFalse();
+        assertThat(claims.toPrincipal().getId()).isEqualTo(7L);
+    }
+
+    @Test
+    void verify_rejectsTamperedTokens() {
+        String token = jwtUtils.generateJwtToken(authentication);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertThat(jwtUtils.verify(tampered)).isNull();
+        assertThat(jwtUtils.verify("not-a-jwt")).isNull();
+        assertThat(jwtUtils.verify("")).isNull();
+    }
+
+    @Test
+    void verify_marksRefreshTokens() {
+        String refresh = jwtUtils.generateRefreshToken(authentication, "jti-1", "fam-1",
+                new Date(System.currentTimeMillis() + 60_000));
+        JwtClaims claims = jwtUtils.verify(refresh);
+        assertThat(claims.isRefreshToken()).isTrue();
+        assertThat(claims.getTokenId()).isEqualTo("jti-1");
+        assertThat(claims.getFamilyId()).isEqualTo("fam-1");
+    }
+
+    /**
+     * Rough per-request cost of checking an access token, before and after verify():
+     * mvn test -Dtest=JwtUtilsTest -Dbenchmarks=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void benchmark_verify() {
+        String token = jwtUtils.generateJwtToken(authentication);
+        JwtUtils uncached = jwtUtils(0);
+        int iterations = 20_000;
+
+        // What the filter used to do: build the key and parser, then validate, read the subject
+        // and check the type, each with its own parse
+        long legacy = nanosPerOp(iterations, () -> {
+            for (int i = 0; i < 3; i++) {
+                Claims c = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                        .parseClaimsJws(token).getBody();
+                if (c.getSubject() == null) throw new AssertionError();
+            }
+        });
+        long singleParse = nanosPerOp(iterations, () -> uncached.verify(token));
+        long cached = nanosPerOp(iterations, () -> jwtUtils.verify(token));
+
+        System.out.printf("[JwtUtilsTest] ns/op: three parses %d, verify() %d, verify() cached %d%n",
+                legacy, singleParse, cached);
+        assertThat(singleParse).isLessThan(legacy);
+        assertThat(cached).isLessThan(singleParse);
+    }
+
+    private static long nanosPerOp(int iterations, Runnable op) {
+        for (int i = 0; i < iterations; i++) op.run(); // warm-up
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) op.run();
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    private static JwtUtils jwtUtils(int tokenCacheMaxSize) {
+        JwtUtils utils = new JwtUtils();
+        ReflectionTestUtils.setField(utils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(utils, "jwtExpirationMs", 60_000);
+        ReflectionTestUtils.setField(utils, "jwtRefreshExpirationMs", 120_000);
+        ReflectionTestUtils.setField(utils, "tokenCacheMaxSize", tokenCacheMaxSize);
+        utils.init();
+        return utils;
+    }
+}
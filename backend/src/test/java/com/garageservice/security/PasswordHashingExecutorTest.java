@@ -0,0 +1,66 @@
+package com.garageservice.security;
+
+import com.garageservice.exception.TooManyRequestsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashingExecutorTest {
+
+    // One worker, one queue slot
+    private final PasswordHashingExecutor hashing = new PasswordHashingExecutor(1, 1, 5000);
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        hashing.shutdown();
+    }
+
+    @Test
+    void saturated_rejectsInsteadOfQueueing() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        Future<String> busy = callers.submit(() -> hashing.call(() -> {
+            running.countDown();
+            release.await();
+            return "first";
+        }));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<String> queued = callers.submit(() -> hashing.call(() -> "second"));
+        Thread.sleep(200); // let it take the only queue slot
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> hashing.call(() -> "third"))
+                .isInstanceOf(TooManyRequestsException.class)
+                .satisfies(e -> assertThat(((TooManyRequestsException) e).getRetryAfterSeconds()).isPositive());
+        // Refused straight away, not after waiting for a slot
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+
+        release.countDown();
+        assertThat(busy.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+    }
+
+    @Test
+    void slowTask_isCutOffWithA429() {
+        PasswordHashingExecutor impatient = new PasswordHashingExecutor(1, 1, 100);
+        try {
+            assertThatThrownBy(() -> impatient.call(() -> {
+                release.await();
+                return "never";
+            })).isInstanceOf(TooManyRequestsException.class);
+        } finally {
+            impatient.shutdown();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.garageservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PolylineCodecTest {
+
+    // Reference polyline from the Google encoding documentation (precision 5)
+    private static final String SAMPLE = "_p~iF~ps|U_ulLnnqC_mqNvxq`@";
+
+    @Test
+    void decodeAndEncode_roundTrip() {
+        int[] coords = PolylineCodec.decode(SAMPLE);
+        assertThat(coords).containsExactly(3850000, -12020000, 4070000, -12095000, 4325200, -12645300);
+        assertThat(PolylineCodec.encode(coords)).isEqualTo(SAMPLE);
+    }
+
+    @Test
+    void packAndUnpack_roundTripIsSmallerThanText() {
+        int[] coords = PolylineCodec.decode(SAMPLE);
+        byte[] packed = PolylineCodec.pack(coords);
+        assertThat(PolylineCodec.unpack(packed)).containsExactly(coords);
+        assertThat(packed.length).isLessThan(SAMPLE.length());
+    }
+
+    @Test
+    void simplify_dropsPointsWithinToleranceAndKeepsEnds() {
+        // Nearly straight line with ~1 m of zig-zag
+        int[] line = new int[200];
+        for (int i = 0; i < 100; i++) {
+            line[2 * i] = 50_000_000 + i * 10;
+            line[2 * i + 1] = 8_000_000 + i * 100 + (i % 2) * 10;
+        }
+        int[] simplified = PolylineCodec.simplify(line, 5, 6);
+        assertThat(simplified).hasSize(4);
+        assertThat(simplified[0]).isEqualTo(line[0]);
+        assertThat(simplified[3]).isEqualTo(line[199]);
+    }
+}
@@ -0,0 +1,164 @@
+package com.garageservice.service;
+
+import com.garageservice.model.RouteCacheEntry;
+import com.garageservice.repository.RouteCacheEntryRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoutingServiceTest {
+
+    private HttpServer osrm;
+    private ExecutorService handlers;
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicBoolean providerUp = new AtomicBoolean();
+    private RoutingService routing;
+
+    @BeforeEach
+    void setup() throws IOException {
+        // Stands in for an OSRM instance that is down (/) or hanging (/slow)
+        handlers = Executors.newCachedThreadPool();
+        osrm = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        osrm.setExecutor(handlers);
+        osrm.createContext("/", exchange -> {
+            calls.incrementAndGet();
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        osrm.createContext("/flaky", exchange -> {
+            calls.incrementAndGet();
+            if (!providerUp.get()) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            String polyline = PolylineCodec.encode(new int[]{-1950000, 30060000, -1955000, 30065000, -1960000, 30070000});
+            byte[] body = ("{\"code\":\"Ok\",\"routes\":[{\"distance\":1800.0,\"duration\":240.0,\"geometry\":\""
+                    + polyline.replace("\\", "\\\\") + "\"}]}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        osrm.createContext("/slow", exchange -> {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(1500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        osrm.start();
+
+        routing = new RoutingService();
+        ReflectionTestUtils.setField(routing, "provider", "osrm");
+        ReflectionTestUtils.setField(routing, "osrmBaseUrl", "http://127.0.0.1:" + osrm.getAddress().getPort());
+        ReflectionTestUtils.setField(routing, "connectTimeoutMs", 500);
+        ReflectionTestUtils.setField(routing, "readTimeoutMs", 300);
+        ReflectionTestUtils.setField(routing, "failureTtlMs", 60_000L);
+        ReflectionTestUtils.setField(routing, "ttlHours", 1L);
+        ReflectionTestUtils.setField(routing, "maxEntries", 100);
+        ReflectionTestUtils.setField(routing, "geometryMaxBytes", 1024L);
+        routing.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        osrm.stop(0);
+        handlers.shutdownNow();
+    }
+
+    @Test
+    void providerDown_returnsNullAndIsNotAskedAgain() {
+        assertThat(routing.route(-1.95, 30.06, -1.96, 30.07)).isNull();
+        assertThat(routing.route(-1.95, 30.06, -1.96, 30.07)).isNull();
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(routing.cachedRoute(-1.95, 30.06, -1.96, 30.07)).isNull();
+    }
+
+    @Test
+    void slowProvider_isCutOffByReadTimeout() {
+        ReflectionTestUtils.setField(routing, "osrmBaseUrl", "http://127.0.0.1:" + osrm.getAddress().getPort() + "/slow");
+        long start = System.currentTimeMillis();
+        assertThat(routing.route(-1.95, 30.06, -1.96, 30.07)).isNull();
+        assertThat(System.currentTimeMillis() - start).isLessThan(1200);
+    }
+
+    @Test
+    void geometryEvicted_providerDown_returnsCachedMetricsWithoutPolyline() {
+        // No room for geometry, so only distance/duration stay cached
+        ReflectionTestUtils.setField(routing, "geometryMaxBytes", 0L);
+        routing.init();
+        ReflectionTestUtils.setField(routing, "osrmBaseUrl", "http://127.0.0.1:" + osrm.getAddress().getPort() + "/flaky");
+        providerUp.set(true);
+        assertThat(routing.route(-1.95, 30.06, -1.96, 30.07)).isNotNull();
+
+        providerUp.set(false);
+
+        var second = routing.route(-1.95, 30.06, -1.96, 30.07, true, null);
+        assertThat(second).isNotNull();
+        assertThat(second.getDistanceMeters()).isEqualTo(1800.0);
+        assertThat(second.getDurationSeconds()).isEqualTo(240.0);
+        assertThat(second.getPolyline()).isNull();
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void storeHits_areCountedInMemoryAndFlushedInOneUpdate() {
+        String key = "osrm|-1.95|30.06|-1.96|30.07";
+        RouteCacheEntry stored = new RouteCacheEntry(key, "osrm", -1.95, 30.06, -1.96, 30.07, LocalDateTime.now().plusHours(1));
+        stored.setDistanceMeters(1800.0);
+        stored.setDurationSeconds(240.0);
+        RouteCacheEntryRepository repository = mock(RouteCacheEntryRepository.class);
+        when(repository.findById(key)).thenReturn(Optional.of(stored));
+        ReflectionTestUtils.setField(routing, "routeCacheEntryRepository", repository);
+        ReflectionTestUtils.setField(routing, "persistentEnabled", true);
+
+        assertThat(routing.route(-1.95, 30.06, -1.96, 30.07).getDistanceMeters()).isEqualTo(1800.0);
+        assertThat(routing.route(-1.95, 30.06, -1.96, 30.07).getDistanceMeters()).isEqualTo(1800.0);
+        verify(repository, never()).addHits(anyString(), anyLong());
+
+        routing.flushHits();
+        verify(repository).addHits(key, 2);
+        routing.flushHits();
+        verify(repository, times(1)).addHits(anyString(), anyLong());
+    }
+
+    @Test
+    void providerDown_etaFallsBackToStraightLine() {
+        EtaService eta = new EtaService();
+        ReflectionTestUtils.setField(eta, "routingService", routing);
+        ReflectionTestUtils.setField(eta, "fallbackSpeedKmh", 30.0);
+        try {
+            double expected = EtaService.haversineKm(-1.95, 30.06, -1.96, 30.07) / 30.0 * 60.0;
+            assertThat(eta.travelMinutes(-1.95, 30.06, -1.96, 30.07)).isCloseTo(expected, within(1e-9));
+            // Never waits on the provider, whatever the cache holds
+            assertThat(eta.cachedTravelMinutes(-1.95, 30.06, -1.96, 30.07)).isCloseTo(expected, within(1e-9));
+        } finally {
+            eta.shutdown();
+        }
+    }
+}
@@ -15,11 +15,12 @@ class NotificationProvider with ChangeNotifier {
   StompClient? _stompClient;
   Timer? _pollTimer;
   int? _userId; // captured after login
+  int? _serverUnread; // unread count pushed with socket events; null until one arrives
 
   List<AppNotification> get notifications => _notifications;
   bool get isLoading => _isLoading;
   String? get error => _error;
-  int get unreadCount => _notifications.where((n) => !n.read).length;
+  int get unreadCount => _serverUnread ?? _notifications.where((n) => !n.read).length;
   bool get hasLoadedOnce => _initialLoaded;
 
   void _setLoading(bool v){
@@ -44,7 +45,9 @@ class NotificationProvider with ChangeNotifier {
   Future<void> refresh() async {
     try {
       final list = await ApiService.getNotifications();
-      _notifications = list; notifyListeners();
+      _notifications = list;
+      _serverUnread = null; // the fresh list is authoritative
+      notifyListeners();
     } catch (e) {
       _setError(e.toString());
     }
@@ -97,7 +100,7 @@ class NotificationProvider with ChangeNotifier {
           webSocketConnectHeaders: token != null ? {'Authorization': 'Bearer $token'} : const {},
           onConnect: (frame){
             _stompClient?.subscribe(
-              destination: '/topic/notifications.${_userId.toString()}',
+              destination: '/user/queue/notifications',
               callback: (StompFrame f){ _handleSocketMessage(f); },
             );
           },
@@ -119,12 +122,24 @@ class NotificationProvider with ChangeNotifier {
       final data = frame.body!;
       final obj = jsonDecode(data);
       final type = obj['type'];
-      if(type == 'CREATED'){
-        // fetch specific new list (simpler to refresh)
-        refresh();
-      } else if(type == 'READ' || type == 'READ_ALL'){
+      final events = type == 'BATCH' ? List<Map<String, dynamic>>.from(obj['events'] ?? const []) : [Map<String, dynamic>.from(obj)];
+      if(events.any((e) => e['type'] == 'CREATED')){
+        // New notifications need their content: refetch the list
         refresh();
+        return;
       }
+      // Read events only change flags, which we can apply locally; the badge comes from the server count
+      for(final e in events){
+        if(e['type'] == 'READ'){
+          final idx = _notifications.indexWhere((n) => n.id == e['id']);
+          if(idx != -1) _notifications[idx] = _notifications[idx].copyWith(read: true);
+        } else if(e['type'] == 'READ_ALL'){
+          _notifications = _notifications.map((n) => n.copyWith(read: true)).toList();
+        }
+      }
+      final unread = obj['unread'];
+      if(unread is int) _serverUnread = unread;
+      notifyListeners();
     } catch(_){ /* ignore */ }
   }
 
@@ -145,6 +160,9 @@ class NotificationProvider with ChangeNotifier {
       final updated = await ApiService.markNotificationRead(id);
       final idx = _notifications.indexWhere((n) => n.id == id);
       if(idx != -1){
+        if(_serverUnread != null && !_notifications[idx].read){
+          _serverUnread = _serverUnread! > 0 ? _serverUnread! - 1 : 0;
+        }
         _notifications[idx] = updated;
         notifyListeners();
       }
@@ -157,6 +175,7 @@ class NotificationProvider with ChangeNotifier {
     try {
       await ApiService.markAllNotificationsRead();
       _notifications = _notifications.map((n) => n.copyWith(read: true)).toList();
+      if(_serverUnread != null) _serverUnread = 0;
       notifyListeners();
     } catch (e) {
       _setError(e.toString());
@@ -165,6 +184,7 @@ class NotificationProvider with ChangeNotifier {
 
   void clearAll(){
     _notifications = [];
+    _serverUnread = null;
     _initialLoaded = false;
     stopRealtime();
     notifyListeners();
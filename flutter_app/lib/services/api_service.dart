@@ -26,6 +26,7 @@ class ApiService {
   static String? _cachedToken;
   static String? _cachedRefreshToken;
   static Timer? _refreshTimer; // proactive refresh timer
+  static Future<bool>? _refreshInFlight; // refresh tokens are single use, so never send one twice
 
   // Optional client-side Google Directions. Provide via:
   // flutter run --dart-define=GOOGLE_DIRECTIONS_API_KEY=YOUR_KEY
@@ -104,8 +105,21 @@ class ApiService {
   }
 
   static Future<void> fullLogout() async {
+    // Best-effort server-side revocation of the refresh token
+    final refresh = await getRefreshToken();
+    if (refresh != null) {
+      try {
+        await http.post(
+          Uri.parse('$baseUrl/auth/logout'),
+          headers: const {'Content-Type': 'application/json', 'Accept': 'application/json'},
+          body: jsonEncode({'refreshToken': refresh}),
+        );
+      } catch (_) {}
+    }
     _cachedToken = null;
     _cachedRefreshToken = null;
+    _notificationsEtag = null;
+    _notificationsCache = null;
     _refreshTimer?.cancel();
     _refreshTimer = null;
     await _storage.delete(key: 'auth_token');
@@ -582,11 +596,24 @@ class ApiService {
   }
 
   // ---------------- Notification endpoints ----------------
+  // Last notifications page and its ETag; a 304 means the cached list is still current
+  static String? _notificationsEtag;
+  static List<AppNotification>? _notificationsCache;
+
   static Future<List<AppNotification>> getNotifications() async {
-    final resp = await _httpGet(Uri.parse('$baseUrl/notifications/my'));
+    final etag = _notificationsEtag;
+    final cached = _notificationsCache;
+    final resp = await _httpGet(Uri.parse('$baseUrl/notifications/my'),
+        extraHeaders: etag != null && cached != null ? {'If-None-Match': etag} : null);
+    if(resp.statusCode == 304 && cached != null){
+      return cached;
+    }
     if(resp.statusCode == 200){
       final data = jsonDecode(resp.body) as List<dynamic>;
-      return data.map((e) => AppNotification.fromJson(e)).toList();
+      final list = data.map((e) => AppNotification.fromJson(e)).toList();
+      _notificationsEtag = resp.headers['etag'];
+      _notificationsCache = list;
+      return list;
     } else {
       throw Exception('Failed to load notifications: ${resp.body}');
     }
@@ -636,12 +663,12 @@ class ApiService {
   }
 
   // ------------------ Auto refresh core ------------------
-  static Future<http.Response> _httpGet(Uri uri) async {
-    final headers = await getHeaders();
+  static Future<http.Response> _httpGet(Uri uri, {Map<String, String>? extraHeaders}) async {
+    final headers = {...await getHeaders(), ...?extraHeaders};
     final resp = await http.get(uri, headers: headers);
     if(resp.statusCode == 401){
       _debugAuthState('GET', uri, headers);
-      final retried = await _attemptRefreshAndRetry(() async => await http.get(uri, headers: await getHeaders()));
+      final retried = await _attemptRefreshAndRetry(() async => await http.get(uri, headers: {...await getHeaders(), ...?extraHeaders}));
       return retried;
     }
     return resp;
@@ -697,7 +724,16 @@ class ApiService {
     return await retryFn();
   }
 
-  static Future<bool> _refreshAccessToken() async {
+  static Future<bool> _refreshAccessToken() {
+    final pending = _refreshInFlight;
+    if (pending != null) return pending;
+    final attempt = _doRefreshAccessToken();
+    _refreshInFlight = attempt;
+    attempt.whenComplete(() => _refreshInFlight = null);
+    return attempt;
+  }
+
+  static Future<bool> _doRefreshAccessToken() async {
     final refresh = await getRefreshToken();
     if (refresh == null) return false;
     try {
@@ -709,6 +745,10 @@ class ApiService {
       if (resp.statusCode == 200) {
         final data = jsonDecode(resp.body);
         final newAccess = data['accessToken'];
+        final newRefresh = data['refreshToken'];
+        if (newRefresh != null) {
+          await saveRefreshToken(newRefresh);
+        }
         if (newAccess != null) {
           await saveToken(newAccess); // schedules next proactive refresh
           return true;